@@ -0,0 +1,52 @@
+package dev.community.onlineplayerserverapi.benchmarks;
+
+import dev.community.onlineplayerserverapi.models.GameDetailsResponseDto;
+import dev.community.onlineplayerserverapi.models.PlayerDetailsRequestDto;
+import dev.community.onlineplayerserverapi.services.PlayerService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Game details pages, from a single column up to teams with resolved nicknames.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GameDetailsBenchmark extends SeededApplicationState {
+
+    @Param({"100"})
+    private int pageSize;
+
+    private PlayerService playerService;
+    private PlayerDetailsRequestDto gameNameRequest;
+    private PlayerDetailsRequestDto fullRequest;
+
+    @Override
+    protected void onStarted() {
+        playerService = context.getBean(PlayerService.class);
+        gameNameRequest = request(Set.of("gameName"));
+        fullRequest = request(Set.of("gameName", "duration", "startTime", "endTime", "teamsDetails"));
+    }
+
+    @Benchmark
+    public GameDetailsResponseDto gameNameOnly() {
+        return playerService.getGameDetails(gameNameRequest);
+    }
+
+    @Benchmark
+    public GameDetailsResponseDto withTeamsDetails() {
+        return playerService.getGameDetails(fullRequest);
+    }
+
+    private PlayerDetailsRequestDto request(Set<String> includes) {
+        PlayerDetailsRequestDto requestDto = new PlayerDetailsRequestDto();
+        requestDto.setIncludes(includes);
+        requestDto.setPageSize(pageSize);
+        return requestDto;
+    }
+}
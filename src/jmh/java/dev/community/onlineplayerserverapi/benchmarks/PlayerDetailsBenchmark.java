@@ -0,0 +1,63 @@
+package dev.community.onlineplayerserverapi.benchmarks;
+
+import dev.community.onlineplayerserverapi.models.PlayerDetailsRequestDto;
+import dev.community.onlineplayerserverapi.models.PlayerDetailsResponseDto;
+import dev.community.onlineplayerserverapi.models.PlayerFilterDto;
+import dev.community.onlineplayerserverapi.services.PlayerService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Player details pages with and without the aggregated play time and game stats.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PlayerDetailsBenchmark extends SeededApplicationState {
+
+    @Param({"100"})
+    private int pageSize;
+
+    private PlayerService playerService;
+    private PlayerDetailsRequestDto nickNameRequest;
+    private PlayerDetailsRequestDto fullRequest;
+    private PlayerDetailsRequestDto prefixRequest;
+
+    @Override
+    protected void onStarted() {
+        playerService = context.getBean(PlayerService.class);
+        nickNameRequest = request(Set.of("nickName"));
+        fullRequest = request(Set.of("nickName", "totalPlayTime", "gamesPlayed", "wins", "losses"));
+        prefixRequest = request(Set.of("nickName", "totalPlayTime"));
+        PlayerFilterDto filterDto = new PlayerFilterDto();
+        filterDto.setNickNamePrefix("player1");
+        prefixRequest.setFilter(filterDto);
+    }
+
+    @Benchmark
+    public PlayerDetailsResponseDto nickNameOnly() {
+        return playerService.getPlayerDetailsPage(nickNameRequest);
+    }
+
+    @Benchmark
+    public PlayerDetailsResponseDto withPlayTimeAndStats() {
+        return playerService.getPlayerDetailsPage(fullRequest);
+    }
+
+    @Benchmark
+    public PlayerDetailsResponseDto nickNamePrefixFilter() {
+        return playerService.getPlayerDetailsPage(prefixRequest);
+    }
+
+    private PlayerDetailsRequestDto request(Set<String> includes) {
+        PlayerDetailsRequestDto requestDto = new PlayerDetailsRequestDto();
+        requestDto.setIncludes(includes);
+        requestDto.setPageSize(pageSize);
+        return requestDto;
+    }
+}
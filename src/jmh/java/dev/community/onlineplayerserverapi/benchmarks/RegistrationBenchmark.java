@@ -0,0 +1,74 @@
+package dev.community.onlineplayerserverapi.benchmarks;
+
+import dev.community.onlineplayerserverapi.models.PlayerDto;
+import dev.community.onlineplayerserverapi.models.RegisterResponseDto;
+import dev.community.onlineplayerserverapi.services.PlayerService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Registration validation and nickname availability. Every request is rejected, so the database
+ * does not grow between invocations and each benchmark measures one validation path.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RegistrationBenchmark extends SeededApplicationState {
+
+    private PlayerService playerService;
+    private PlayerDto tooLong;
+    private PlayerDto takenNickName;
+    private PlayerDto takenEmail;
+    private PlayerDto invalidEmail;
+
+    @Override
+    protected void onStarted() {
+        playerService = context.getBean(PlayerService.class);
+        tooLong = player("a-nickname-over-twenty-characters", "new@bench.io");
+        takenNickName = player("player" + players / 2, "new@bench.io");
+        takenEmail = player("newPlayer", "player" + players / 2 + "@bench.io");
+        invalidEmail = player("newPlayer", "not-an-email");
+    }
+
+    @Benchmark
+    public RegisterResponseDto rejectedByLength() {
+        return playerService.register(tooLong);
+    }
+
+    @Benchmark
+    public RegisterResponseDto rejectedByTakenNickName() {
+        return playerService.register(takenNickName);
+    }
+
+    @Benchmark
+    public RegisterResponseDto rejectedByTakenEmail() {
+        return playerService.register(takenEmail);
+    }
+
+    @Benchmark
+    public RegisterResponseDto rejectedByEmailFormat() {
+        return playerService.register(invalidEmail);
+    }
+
+    @Benchmark
+    public boolean availableNickNameCheck() {
+        return playerService.isPlayerExisting("newPlayer");
+    }
+
+    @Benchmark
+    public boolean takenNickNameCheck() {
+        return playerService.isPlayerExisting(takenNickName.getNickName());
+    }
+
+    private static PlayerDto player(String nickName, String email) {
+        PlayerDto playerDto = new PlayerDto();
+        playerDto.setNickName(nickName);
+        playerDto.setEmail(email);
+        playerDto.setPasswordHash("password");
+        return playerDto;
+    }
+}
@@ -0,0 +1,134 @@
+package dev.community.onlineplayerserverapi.benchmarks;
+
+import dev.community.onlineplayerserverapi.OnlinePlayerServerApiApplication;
+import dev.community.onlineplayerserverapi.services.PlayerNameFilter;
+import dev.community.onlineplayerserverapi.services.SessionService;
+import dev.community.onlineplayerserverapi.utils.Batches;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.stream.LongStream;
+
+/**
+ * Starts the application against a fresh in-memory H2 database and seeds it with the configured
+ * volumes. Override them from the command line, e.g. {@code -p players=100000}.
+ */
+@State(Scope.Benchmark)
+public abstract class SeededApplicationState {
+
+    @Param({"10000"})
+    protected int players;
+
+    @Param({"5"})
+    protected int sessionsPerPlayer;
+
+    @Param({"10000"})
+    protected int games;
+
+    protected ConfigurableApplicationContext context;
+
+    @Setup(Level.Trial)
+    public void startApplication() {
+        context = new SpringApplicationBuilder(OnlinePlayerServerApiApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.driverClassName=org.h2.Driver",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--spring.main.banner-mode=off",
+                        "--logging.level.root=WARN");
+        seed(context.getBean(JdbcTemplate.class));
+        context.getBean(SessionService.class).recomputePlayTime(LongStream.rangeClosed(1, players).boxed().toList());
+        context.getBean(PlayerNameFilter.class).refresh();
+        onStarted();
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+    }
+
+    protected void onStarted() {
+    }
+
+    protected static String sessionToken(long playerId) {
+        return "token-" + playerId;
+    }
+
+    private void seed(JdbcTemplate jdbcTemplate) {
+        Random random = new Random(42);
+        LocalDateTime now = LocalDateTime.now();
+
+        List<Object[]> playerRows = new ArrayList<>();
+        List<Object[]> sessionRows = new ArrayList<>();
+        long sessionId = 1;
+        for (long playerId = 1; playerId <= players; playerId++) {
+            playerRows.add(new Object[]{playerId, "player" + playerId, "player" + playerId + "@bench.io", "password",
+                    Timestamp.valueOf(now.minusDays(sessionsPerPlayer))});
+            for (int i = 1; i < sessionsPerPlayer; i++) {
+                LocalDateTime loginTime = now.minusDays(i);
+                sessionRows.add(new Object[]{sessionId++, playerId, sessionToken(playerId) + "-" + i, Timestamp.valueOf(loginTime),
+                        Timestamp.valueOf(loginTime.plusMinutes(random.nextInt(180))), true});
+            }
+            sessionRows.add(new Object[]{sessionId++, playerId, sessionToken(playerId), Timestamp.valueOf(now),
+                    Timestamp.valueOf(now), false});
+        }
+        batchInsert(jdbcTemplate, "insert into T_PLAYER (id, nick_name, email, password_hash, created_at) " +
+                "values (?, ?, ?, ?, ?)", playerRows);
+        batchInsert(jdbcTemplate, "insert into T_PLAYER_SESSION (id, player_id, session_token, login_time, " +
+                "last_activity_time, is_closed) values (?, ?, ?, ?, ?, ?)", sessionRows);
+
+        List<Object[]> gameRows = new ArrayList<>();
+        List<Object[]> teamRows = new ArrayList<>();
+        List<Object[]> memberRows = new ArrayList<>();
+        long teamId = 1;
+        for (long gameId = 1; gameId <= games; gameId++) {
+            LocalDateTime startTime = now.minusMinutes(random.nextInt(100_000));
+            long host = 1 + random.nextInt(players);
+            long opponent = host % players + 1;
+            gameRows.add(new Object[]{gameId, "game" + gameId, host, Timestamp.valueOf(startTime),
+                    Timestamp.valueOf(startTime.plusMinutes(30))});
+            teamRows.add(new Object[]{teamId, gameId, String.valueOf(host), String.valueOf(host)});
+            memberRows.add(new Object[]{teamId++, host, true});
+            teamRows.add(new Object[]{teamId, gameId, String.valueOf(opponent), null});
+            memberRows.add(new Object[]{teamId++, opponent, false});
+        }
+        batchInsert(jdbcTemplate, "insert into T_GAME (id, name, host_player_id, start_time, end_time) " +
+                "values (?, ?, ?, ?, ?)", gameRows);
+        batchInsert(jdbcTemplate, "insert into T_GAME_TEAM (id, game_id, player_ids, remaining_players) " +
+                "values (?, ?, ?, ?)", teamRows);
+        batchInsert(jdbcTemplate, "insert into T_GAME_TEAM_MEMBER (team_id, player_id, is_remaining) " +
+                "values (?, ?, ?)", memberRows);
+        // the pooled optimizer hands out ids from the sequence value minus 49, so each sequence
+        // restarts 50 above the last seeded id
+        restartSequence(jdbcTemplate, "T_PLAYER_SEQ", players);
+        restartSequence(jdbcTemplate, "T_PLAYER_SESSION_SEQ", sessionId - 1);
+        restartSequence(jdbcTemplate, "T_GAME_SEQ", games);
+        restartSequence(jdbcTemplate, "T_GAME_TEAM_SEQ", teamId - 1);
+    }
+
+    private static void restartSequence(JdbcTemplate jdbcTemplate, String sequenceName, long lastId) {
+        jdbcTemplate.execute("alter sequence " + sequenceName + " restart with " + (lastId + 50));
+    }
+
+    private static void batchInsert(JdbcTemplate jdbcTemplate, String sql, List<Object[]> rows) {
+        for (List<Object[]> batch : Batches.partition(rows, 1_000)) {
+            jdbcTemplate.batchUpdate(sql, batch);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package dev.community.onlineplayerserverapi.benchmarks;
+
+import dev.community.onlineplayerserverapi.entities.PlayerSession;
+import dev.community.onlineplayerserverapi.services.SessionService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request token path: lookups served by the token cache, lookups of unknown tokens that always
+ * reach the database, and activity updates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class SessionTokenBenchmark extends SeededApplicationState {
+
+    private SessionService sessionService;
+
+    @Override
+    protected void onStarted() {
+        sessionService = context.getBean(SessionService.class);
+    }
+
+    @Benchmark
+    public PlayerSession getPlayerSession() {
+        return sessionService.getPlayerSession(randomToken());
+    }
+
+    @Benchmark
+    public boolean isSessionValidForUnknownToken() {
+        return sessionService.isSessionValid("unknown-" + ThreadLocalRandom.current().nextInt(players));
+    }
+
+    @Benchmark
+    public void updateActivity() {
+        sessionService.updateActivity(randomToken());
+    }
+
+    private String randomToken() {
+        return sessionToken(1 + ThreadLocalRandom.current().nextInt(players));
+    }
+}
@@ -0,0 +1,98 @@
+package dev.community.onlineplayerserverapi.converters;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.util.StringUtils;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Compares the primitive converter with the previous stream-based one on the team sizes we see:
+ * solo teams, small parties and full lobbies.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-XX:+UseParallelGC")
+public class LongSetToStringConverterBenchmark {
+
+    @Param({"1", "5", "20"})
+    private int teamSize;
+
+    private final LongSetToStringConverter converter = new LongSetToStringConverter();
+    private final StreamLongSetToStringConverter streamConverter = new StreamLongSetToStringConverter();
+
+    private String column;
+    private Set<Long> compactSet;
+    private Set<Long> hashSet;
+
+    @Setup
+    public void setUp() {
+        column = ThreadLocalRandom.current().longs(teamSize, 1, 5_000_000)
+                .sorted()
+                .mapToObj(String::valueOf)
+                .collect(Collectors.joining(","));
+        compactSet = converter.convertToEntityAttribute(column);
+        hashSet = streamConverter.convertToEntityAttribute(column);
+    }
+
+    @Benchmark
+    public Set<Long> read() {
+        return converter.convertToEntityAttribute(column);
+    }
+
+    @Benchmark
+    public Set<Long> readWithStreams() {
+        return streamConverter.convertToEntityAttribute(column);
+    }
+
+    @Benchmark
+    public String write() {
+        return converter.convertToDatabaseColumn(compactSet);
+    }
+
+    @Benchmark
+    public String writeWithStreams() {
+        return streamConverter.convertToDatabaseColumn(hashSet);
+    }
+
+    @Benchmark
+    public boolean contains() {
+        return compactSet.contains(4_999_999L);
+    }
+
+    @Benchmark
+    public boolean containsInHashSet() {
+        return hashSet.contains(4_999_999L);
+    }
+
+    /**
+     * The converter as it was before, kept here as the baseline.
+     */
+    static class StreamLongSetToStringConverter {
+
+        Set<Long> convertToEntityAttribute(String dbData) {
+            if (!StringUtils.hasText(dbData)) {
+                return Collections.emptySet();
+            }
+            return Arrays.stream(dbData.split(","))
+                    .map(Long::valueOf)
+                    .collect(Collectors.toSet());
+        }
+
+        String convertToDatabaseColumn(Set<Long> attribute) {
+            if (attribute == null || attribute.isEmpty()) {
+                return null;
+            }
+            return attribute.stream()
+                    .map(String::valueOf)
+                    .collect(Collectors.joining(","));
+        }
+    }
+}
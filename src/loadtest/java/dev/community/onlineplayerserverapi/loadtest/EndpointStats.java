@@ -0,0 +1,55 @@
+package dev.community.onlineplayerserverapi.loadtest;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Latencies and failures recorded for one endpoint.
+ */
+class EndpointStats {
+
+    private final String endpoint;
+    private final List<Long> latenciesNanos = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicInteger failures = new AtomicInteger();
+
+    EndpointStats(String endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    void record(long latencyNanos, boolean failed) {
+        latenciesNanos.add(latencyNanos);
+        if (failed) {
+            failures.incrementAndGet();
+        }
+    }
+
+    String report(double elapsedSeconds) {
+        List<Long> sorted;
+        synchronized (latenciesNanos) {
+            sorted = new ArrayList<>(latenciesNanos);
+        }
+        Collections.sort(sorted);
+        return String.format("%-22s %8d %8d %10.2f %10.2f %10.2f %10.1f", endpoint, sorted.size(), failures.get(),
+                millis(percentile(sorted, 0.50)), millis(percentile(sorted, 0.99)),
+                millis(sorted.isEmpty() ? 0 : sorted.get(sorted.size() - 1)), sorted.size() / elapsedSeconds);
+    }
+
+    static String header() {
+        return String.format("%-22s %8s %8s %10s %10s %10s %10s", "endpoint", "requests", "failed", "p50 ms",
+                "p99 ms", "max ms", "req/s");
+    }
+
+    private static long percentile(List<Long> sorted, double percentile) {
+        if (sorted.isEmpty()) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sorted.size()) - 1;
+        return sorted.get(Math.max(index, 0));
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
@@ -0,0 +1,183 @@
+package dev.community.onlineplayerserverapi.loadtest;
+
+import dev.community.onlineplayerserverapi.OnlinePlayerServerApiApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+
+/**
+ * Drives the player endpoints with a synthetic population. Players are simulated in pairs: both
+ * register and log in, one creates a game and the other joins it, both read details, leave the
+ * game and log out. Latency percentiles and throughput are printed per endpoint.
+ *
+ * <p>Without {@code --target} the application is started on a random port against an in-memory H2
+ * database in MySQL mode, with the Spring profiles given in {@code --profiles}.
+ *
+ * <pre>
+ * mvn -Ploadtest -DskipTests verify -Dloadtest.players=2000 -Dloadtest.concurrency=200
+ * mvn -Ploadtest -DskipTests verify -Dloadtest.profiles=virtual-threads
+ * </pre>
+ */
+public class LoadTest {
+
+    private static final Pattern TOKEN = Pattern.compile("\"token\"\\s*:\\s*\"([^\"]+)\"");
+
+    private final String baseUrl;
+    private final HttpClient httpClient;
+    private final String runId = Long.toString(System.currentTimeMillis() % 100_000, 36);
+    private final Map<String, EndpointStats> stats = new LinkedHashMap<>();
+
+    LoadTest(String baseUrl, int concurrency) {
+        this.baseUrl = baseUrl;
+        this.httpClient = HttpClient.newBuilder()
+                .executor(Executors.newFixedThreadPool(concurrency))
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        List.of("register", "login", "game-create", "game-join", "player-details", "game-details", "game-leave",
+                "logout").forEach(endpoint -> stats.put(endpoint, new EndpointStats(endpoint)));
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        int players = Integer.parseInt(options.getOrDefault("players", "1000"));
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "100"));
+        String target = options.getOrDefault("target", "");
+
+        ConfigurableApplicationContext context = null;
+        if (target.isBlank()) {
+            context = startApplication(options.getOrDefault("profiles", ""));
+            target = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+        }
+        try {
+            new LoadTest(target, concurrency).run(players, concurrency);
+        } finally {
+            if (context != null) {
+                context.close();
+            }
+        }
+        System.exit(0);
+    }
+
+    void run(int players, int concurrency) throws Exception {
+        int pairs = Math.max(1, players / 2);
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        long start = System.nanoTime();
+        List<Future<?>> futures = IntStream.range(0, pairs)
+                .<Future<?>>mapToObj(pair -> executor.submit(() -> simulatePair(pair)))
+                .toList();
+        int crashed = 0;
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (Exception e) {
+                crashed++;
+            }
+        }
+        double elapsedSeconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        executor.shutdown();
+
+        System.out.printf("%n%d players, %d concurrent, %.1f s, %d pairs aborted%n", pairs * 2, concurrency,
+                elapsedSeconds, crashed);
+        System.out.println(EndpointStats.header());
+        stats.values().forEach(endpointStats -> System.out.println(endpointStats.report(elapsedSeconds)));
+    }
+
+    private void simulatePair(int pair) {
+        String host = "h" + runId + "-" + pair;
+        String guest = "g" + runId + "-" + pair;
+        String gameName = "game" + runId + "-" + pair;
+
+        register(host);
+        register(guest);
+        String hostToken = login(host);
+        String guestToken = login(guest);
+
+        call("game-create", "POST", "/players/game-create", gameRequest(gameName, hostToken));
+        call("game-join", "POST", "/players/game-join", gameRequest(gameName, guestToken));
+        call("player-details", "GET", "/players/player-details",
+                "{\"includes\":[\"nickName\",\"totalPlayTime\",\"gamesPlayed\"],\"pageSize\":50,"
+                        + "\"playerToken\":\"" + hostToken + "\"}");
+        call("game-details", "GET", "/players/game-details",
+                "{\"includes\":[\"gameName\",\"duration\",\"teamsDetails\"],\"pageSize\":50}");
+        call("game-leave", "POST", "/players/game-leave", gameRequest(gameName, guestToken));
+        call("game-leave", "POST", "/players/game-leave", gameRequest(gameName, hostToken));
+
+        call("logout", "POST", "/players/logout", hostToken);
+        call("logout", "POST", "/players/logout", guestToken);
+    }
+
+    private void register(String nickName) {
+        call("register", "PUT", "/players/register", player(nickName));
+    }
+
+    private String login(String nickName) {
+        Matcher matcher = TOKEN.matcher(call("login", "POST", "/players/login", player(nickName)));
+        if (!matcher.find()) {
+            throw new IllegalStateException("Login failed for " + nickName);
+        }
+        return matcher.group(1);
+    }
+
+    private String call(String endpoint, String method, String path, String body) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", endpoint.equals("logout") ? "text/plain" : "application/json")
+                .method(method, HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        long start = System.nanoTime();
+        try {
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            boolean failed = response.statusCode() >= 400 || response.body().contains("\"REJECTED\"");
+            stats.get(endpoint).record(System.nanoTime() - start, failed);
+            return response.body();
+        } catch (Exception e) {
+            stats.get(endpoint).record(System.nanoTime() - start, true);
+            throw new IllegalStateException(endpoint + " failed", e);
+        }
+    }
+
+    private static String player(String nickName) {
+        return "{\"nickName\":\"" + nickName + "\",\"email\":\"" + nickName + "@lt.io\",\"passwordHash\":\"secret\"}";
+    }
+
+    private static String gameRequest(String gameName, String token) {
+        return "{\"gameName\":\"" + gameName + "\",\"playerToken\":\"" + token + "\"}";
+    }
+
+    private static ConfigurableApplicationContext startApplication(String profiles) {
+        return new SpringApplicationBuilder(OnlinePlayerServerApiApplication.class)
+                .run("--server.port=0",
+                        "--spring.profiles.active=" + profiles,
+                        "--spring.datasource.url=jdbc:h2:mem:loadtest;MODE=MySQL;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.driverClassName=org.h2.Driver",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--spring.main.banner-mode=off",
+                        "--logging.level.root=WARN");
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            }
+        }
+        return options;
+    }
+}
@@ -2,8 +2,17 @@ package dev.community.onlineplayerserverapi.controllers;
 
 import dev.community.onlineplayerserverapi.models.*;
 import dev.community.onlineplayerserverapi.services.PlayerService;
+import dev.community.onlineplayerserverapi.utils.InvalidCursorException;
+import dev.community.onlineplayerserverapi.utils.KeysetCursor;
 import lombok.AllArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
 
 @RestController
 @RequestMapping("/players")
@@ -12,6 +21,8 @@ public class PlayerController {
 
     private PlayerService playerService;
 
+    private JsonMapper jsonMapper;
+
     @GetMapping("/player-exists")
     public Boolean playerExists(@RequestParam String nickName) {
         return playerService.isPlayerExisting(nickName);
@@ -56,4 +67,25 @@ public class PlayerController {
     public GameDetailsResponseDto getGameDetails(@RequestBody PlayerDetailsRequestDto playerDetailsRequestDto) {
         return playerService.getGameDetails(playerDetailsRequestDto);
     }
+
+    @GetMapping(value = "/game-details/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public StreamingResponseBody streamGameDetails(@RequestBody PlayerDetailsRequestDto playerDetailsRequestDto) {
+        // checked before streaming starts, while the status can still be set
+        if (playerDetailsRequestDto.getCursor() != null) {
+            KeysetCursor.decode(playerDetailsRequestDto.getCursor());
+        }
+        return outputStream -> playerService.streamGameDetails(playerDetailsRequestDto, gameDetails -> {
+            try {
+                outputStream.write(jsonMapper.writeValueAsBytes(gameDetails));
+                outputStream.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<String> invalidCursor(InvalidCursorException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
 }
@@ -1,36 +1,44 @@
 package dev.community.onlineplayerserverapi.converters;
 
+import dev.community.onlineplayerserverapi.utils.CompactLongSet;
 import jakarta.persistence.AttributeConverter;
 import jakarta.persistence.Converter;
 import org.springframework.util.StringUtils;
 
-import java.util.Arrays;
-import java.util.Collections;
 import java.util.Set;
-import java.util.stream.Collectors;
 
+/**
+ * Stores id sets as comma-joined text. Both directions work on primitives: the column is scanned
+ * by hand into a {@link CompactLongSet}, and written back without boxing when the set is one.
+ */
 @Converter
 public class LongSetToStringConverter implements AttributeConverter<Set<Long>, String> {
 
-    private static final String DELIMITER = ",";
+    private static final char DELIMITER = ',';
 
     @Override
     public String convertToDatabaseColumn(Set<Long> attribute) {
         if (attribute == null || attribute.isEmpty()) {
             return null;
         }
-        return attribute.stream()
-                .map(String::valueOf)
-                .collect(Collectors.joining(DELIMITER));
+        StringBuilder builder = new StringBuilder(attribute.size() * 8);
+        if (attribute instanceof CompactLongSet compactLongSet) {
+            return compactLongSet.appendTo(builder, DELIMITER).toString();
+        }
+        for (Long value : attribute) {
+            if (!builder.isEmpty()) {
+                builder.append(DELIMITER);
+            }
+            builder.append(value.longValue());
+        }
+        return builder.toString();
     }
 
     @Override
     public Set<Long> convertToEntityAttribute(String dbData) {
         if (!StringUtils.hasText(dbData)) {
-            return Collections.emptySet();
+            return new CompactLongSet();
         }
-        return Arrays.stream(dbData.split(DELIMITER))
-                .map(Long::valueOf)
-                .collect(Collectors.toSet());
+        return CompactLongSet.parse(dbData, DELIMITER);
     }
 }
@@ -11,17 +11,27 @@ import java.util.List;
 @Data
 @Entity
 @EqualsAndHashCode
-@Table(name = "T_GAME")
+@Table(name = "T_GAME", indexes = {
+        @Index(name = "idx_game_name_end_time_start_time", columnList = "name, end_time, start_time"),
+        @Index(name = "idx_game_active_name", columnList = "active_name", unique = true)})
 @NoArgsConstructor
 public class Game {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "game_seq")
+    @SequenceGenerator(name = "game_seq", sequenceName = "T_GAME_SEQ", allocationSize = 50)
     @Column(name = "id")
     private Long id;
 
     @Column(name = "name")
     private String name;
 
+    /**
+     * The name while the game has not ended, null afterwards. Unique, so two open games can never
+     * share a name.
+     */
+    @Column(name = "active_name")
+    private String activeName;
+
     @Column(name="host_player_id")
     private Long hostPlayerId;
 
@@ -31,6 +41,10 @@ public class Game {
     @Column(name="end_time")
     private LocalDateTime endTime;
 
-    @OneToMany(fetch = FetchType.EAGER, mappedBy = "game")
+    @OneToMany(fetch = FetchType.LAZY, mappedBy = "game", cascade = CascadeType.PERSIST)
     private List<GameTeam> gameTeams;
+
+    @Version
+    @Column(name = "version")
+    private Long version;
 }
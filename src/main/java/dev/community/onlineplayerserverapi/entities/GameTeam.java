@@ -15,7 +15,8 @@ import java.util.Set;
 @NoArgsConstructor
 public class GameTeam {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "game_team_seq")
+    @SequenceGenerator(name = "game_team_seq", sequenceName = "T_GAME_TEAM_SEQ", allocationSize = 50)
     @Column(name = "id")
     private Long id;
 
@@ -30,4 +31,8 @@ public class GameTeam {
     @Column(name = "remaining_players")
     @Convert(converter = LongSetToStringConverter.class)
     private Set<Long> remainingPlayers;
+
+    @Version
+    @Column(name = "version")
+    private Long version;
 }
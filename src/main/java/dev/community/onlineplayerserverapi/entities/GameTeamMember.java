@@ -0,0 +1,59 @@
+package dev.community.onlineplayerserverapi.entities;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Persistable;
+
+/**
+ * One row per player of a team, so membership checks are index seeks instead of parsing the
+ * comma-separated sets of every team. The ids are assigned, so the entity tells Spring Data
+ * whether it is new; saving a new member is then a plain insert without a select first.
+ */
+@Data
+@Entity
+@EqualsAndHashCode
+@Table(name = "T_GAME_TEAM_MEMBER",
+        indexes = @Index(name = "idx_game_team_member_player_remaining", columnList = "player_id, is_remaining"))
+@IdClass(GameTeamMemberId.class)
+@NoArgsConstructor
+public class GameTeamMember implements Persistable<GameTeamMemberId> {
+
+    @Id
+    @Column(name = "team_id")
+    private Long teamId;
+
+    @Id
+    @Column(name = "player_id")
+    private Long playerId;
+
+    @Column(name = "is_remaining")
+    private Boolean isRemaining;
+
+    @Transient
+    @EqualsAndHashCode.Exclude
+    private boolean persisted;
+
+    public GameTeamMember(Long teamId, Long playerId, Boolean isRemaining) {
+        this.teamId = teamId;
+        this.playerId = playerId;
+        this.isRemaining = isRemaining;
+    }
+
+    @Override
+    public GameTeamMemberId getId() {
+        return new GameTeamMemberId(teamId, playerId);
+    }
+
+    @Override
+    public boolean isNew() {
+        return !persisted;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markPersisted() {
+        persisted = true;
+    }
+}
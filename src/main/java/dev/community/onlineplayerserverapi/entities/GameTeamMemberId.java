@@ -0,0 +1,15 @@
+package dev.community.onlineplayerserverapi.entities;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GameTeamMemberId implements Serializable {
+    private Long teamId;
+    private Long playerId;
+}
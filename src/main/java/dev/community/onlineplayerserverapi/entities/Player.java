@@ -5,14 +5,20 @@ import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 
+import java.time.LocalDateTime;
+
 @Data
 @Entity
 @EqualsAndHashCode
-@Table(name = "T_PLAYER")
+@Table(name = "T_PLAYER", indexes = {
+        @Index(name = "idx_player_nick_name", columnList = "nick_name", unique = true),
+        @Index(name = "idx_player_email", columnList = "email", unique = true),
+        @Index(name = "idx_player_created_at", columnList = "created_at, id")})
 @NoArgsConstructor
 public class Player {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "player_seq")
+    @SequenceGenerator(name = "player_seq", sequenceName = "T_PLAYER_SEQ", allocationSize = 50)
     @Column(name = "id")
     private Long id;
 
@@ -24,4 +30,11 @@ public class Player {
 
     @Column(name = "password_hash")
     private String passwordHash;
+
+    /**
+     * Registration time. Ids come from pooled sequences and are not committed in order across
+     * instances, so new players are found by this column instead.
+     */
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
 }
@@ -0,0 +1,30 @@
+package dev.community.onlineplayerserverapi.entities;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+/**
+ * Per-player game counters, updated when a game ends.
+ */
+@Data
+@Entity
+@EqualsAndHashCode
+@Table(name = "T_PLAYER_GAME_STATS")
+@NoArgsConstructor
+public class PlayerGameStats {
+
+    @Id
+    @Column(name = "player_id")
+    private Long playerId;
+
+    @Column(name = "games_played")
+    private Integer gamesPlayed;
+
+    @Column(name = "wins")
+    private Integer wins;
+
+    @Column(name = "losses")
+    private Integer losses;
+}
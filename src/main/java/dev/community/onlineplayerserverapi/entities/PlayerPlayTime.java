@@ -0,0 +1,32 @@
+package dev.community.onlineplayerserverapi.entities;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Per-player rollup of closed sessions, kept up to date when a session is closed.
+ */
+@Data
+@Entity
+@EqualsAndHashCode
+@Table(name = "T_PLAYER_PLAY_TIME")
+@NoArgsConstructor
+public class PlayerPlayTime {
+
+    @Id
+    @Column(name = "player_id")
+    private Long playerId;
+
+    @Column(name = "total_seconds")
+    private Long totalSeconds;
+
+    @Column(name = "session_count")
+    private Integer sessionCount;
+
+    @Column(name = "last_login_time")
+    private LocalDateTime lastLoginTime;
+}
@@ -10,12 +10,14 @@ import java.time.LocalDateTime;
 @Data
 @Entity
 @EqualsAndHashCode
-@Table(name = "T_PLAYER_SESSION")
+@Table(name = "T_PLAYER_SESSION",
+        indexes = @Index(name = "idx_player_session_closed_last_activity", columnList = "is_closed, last_activity_time"))
 @NoArgsConstructor
 public class PlayerSession {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "player_session_seq")
+    @SequenceGenerator(name = "player_session_seq", sequenceName = "T_PLAYER_SESSION_SEQ", allocationSize = 50)
     @Column(name = "id")
     private Long id;
 
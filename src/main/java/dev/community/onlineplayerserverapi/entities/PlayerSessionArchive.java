@@ -0,0 +1,37 @@
+package dev.community.onlineplayerserverapi.entities;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Closed session moved out of {@link PlayerSession} once old enough. Its play time is already in
+ * the player's {@link PlayerPlayTime} rollup, so it is read only to rebuild the rollup.
+ */
+@Data
+@Entity
+@EqualsAndHashCode
+@Table(name = "T_PLAYER_SESSION_ARCHIVE",
+        indexes = @Index(name = "idx_player_session_archive_player_id", columnList = "player_id"))
+@NoArgsConstructor
+public class PlayerSessionArchive {
+
+    @Id
+    @Column(name = "id")
+    private Long id;
+
+    @Column(name = "player_id")
+    private Long playerId;
+
+    @Column(name = "session_token")
+    private String sessionToken;
+
+    @Column(name = "login_time")
+    private LocalDateTime loginTime;
+
+    @Column(name = "last_activity_time")
+    private LocalDateTime lastActivityTime;
+}
@@ -0,0 +1,50 @@
+package dev.community.onlineplayerserverapi.jobs;
+
+import dev.community.onlineplayerserverapi.repositories.PlayerRepository;
+import dev.community.onlineplayerserverapi.services.SessionService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Backfills and repairs the per-player play time rollup, walking the players by id in batches.
+ */
+@Component
+@RequiredArgsConstructor
+public class PlayTimeRollupJob {
+
+    private final PlayerRepository playerRepository;
+    private final SessionService sessionService;
+
+    @Value("${features.session.rollup.batchSize:500}")
+    private Integer batchSize;
+
+    @Value("${features.session.rollup.backfillOnStartup:false}")
+    private Boolean backfillOnStartup;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnStartup() {
+        if (backfillOnStartup) {
+            recomputeAll();
+        }
+    }
+
+    @Scheduled(cron = "${features.session.rollup.recomputeCron:-}")
+    public void recomputeAll() {
+        Long lastId = 0L;
+        List<Long> playerIds;
+        do {
+            playerIds = playerRepository.findIdsAfter(lastId, Limit.of(batchSize));
+            if (!playerIds.isEmpty()) {
+                sessionService.recomputePlayTime(playerIds);
+                lastId = playerIds.get(playerIds.size() - 1);
+            }
+        } while (playerIds.size() == batchSize);
+    }
+}
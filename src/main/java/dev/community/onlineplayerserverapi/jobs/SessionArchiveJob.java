@@ -0,0 +1,46 @@
+package dev.community.onlineplayerserverapi.jobs;
+
+import dev.community.onlineplayerserverapi.repositories.SessionRepository;
+import dev.community.onlineplayerserverapi.services.SessionService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Moves the sessions closed for longer than the configured age to the archive, walking them by
+ * id in batches, so the session table stays proportional to the players online.
+ */
+@Component
+@RequiredArgsConstructor
+public class SessionArchiveJob {
+
+    private final SessionRepository sessionRepository;
+    private final SessionService sessionService;
+
+    @Value("${features.session.archive.afterDays:30}")
+    private Integer archiveAfterDays;
+
+    @Value("${features.session.archive.batchSize:1000}")
+    private Integer batchSize;
+
+    @Scheduled(cron = "${features.session.archive.cron:-}")
+    public int archiveClosedSessions() {
+        LocalDateTime closedBefore = LocalDateTime.now().minusDays(archiveAfterDays);
+        int archivedSessions = 0;
+        Long lastId = 0L;
+        List<Long> sessionIds;
+        do {
+            sessionIds = sessionRepository.findClosedSessionIdsAfter(closedBefore, lastId, Limit.of(batchSize));
+            if (!sessionIds.isEmpty()) {
+                archivedSessions += sessionService.archiveClosedSessions(sessionIds);
+                lastId = sessionIds.get(sessionIds.size() - 1);
+            }
+        } while (sessionIds.size() == batchSize);
+        return archivedSessions;
+    }
+}
@@ -0,0 +1,46 @@
+package dev.community.onlineplayerserverapi.jobs;
+
+import dev.community.onlineplayerserverapi.repositories.SessionRepository;
+import dev.community.onlineplayerserverapi.services.SessionService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Closes the sessions that expired without a logout, walking them by id in batches, so the
+ * opened sessions stay limited to the players that are online.
+ */
+@Component
+@RequiredArgsConstructor
+public class SessionExpiryJob {
+
+    private final SessionRepository sessionRepository;
+    private final SessionService sessionService;
+
+    @Value("${features.session.expirationTimeSeconds:10800}")
+    private Integer sessionExpirationTime;
+
+    @Value("${features.session.expiry.batchSize:500}")
+    private Integer batchSize;
+
+    @Scheduled(fixedDelayString = "${features.session.expiry.sweepIntervalMillis:60000}")
+    public int closeExpiredSessions() {
+        LocalDateTime expiredBefore = LocalDateTime.now().minusSeconds(sessionExpirationTime);
+        int closedSessions = 0;
+        Long lastId = 0L;
+        List<Long> sessionIds;
+        do {
+            sessionIds = sessionRepository.findExpiredOpenedSessionIdsAfter(expiredBefore, lastId, Limit.of(batchSize));
+            if (!sessionIds.isEmpty()) {
+                closedSessions += sessionService.closeExpiredSessions(sessionIds, expiredBefore);
+                lastId = sessionIds.get(sessionIds.size() - 1);
+            }
+        } while (sessionIds.size() == batchSize);
+        return closedSessions;
+    }
+}
@@ -3,9 +3,11 @@ package dev.community.onlineplayerserverapi.mappers;
 import dev.community.onlineplayerserverapi.entities.Player;
 import dev.community.onlineplayerserverapi.models.PlayerDto;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 
 @Mapper(componentModel = "spring")
 public interface PlayerMapper {
 
+    @Mapping(target = "createdAt", ignore = true)
     Player toEntity(PlayerDto playerDto);
 }
@@ -0,0 +1,49 @@
+package dev.community.onlineplayerserverapi.metrics;
+
+import dev.community.onlineplayerserverapi.repositories.GameRepository;
+import dev.community.onlineplayerserverapi.repositories.SessionRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Open session and active game gauges. The counts are refreshed on a schedule rather than on
+ * every scrape, so scraping never queries the database.
+ */
+@Component
+@RequiredArgsConstructor
+public class ActivityGauges implements MeterBinder {
+
+    private final SessionRepository sessionRepository;
+    private final GameRepository gameRepository;
+
+    @Value("${features.session.expirationTimeSeconds:10800}")
+    private Integer sessionExpirationTime;
+
+    private final AtomicLong openSessions = new AtomicLong();
+    private final AtomicLong activeGames = new AtomicLong();
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("sessions.open", openSessions, AtomicLong::get)
+                .description("Sessions that are opened and not yet expired")
+                .register(registry);
+        Gauge.builder("games.active", activeGames, AtomicLong::get)
+                .description("Games that have not ended")
+                .register(registry);
+    }
+
+    @Scheduled(fixedDelayString = "${features.metrics.gauges.refreshIntervalMillis:30000}")
+    public void refresh() {
+        LocalDateTime activeSince = LocalDateTime.now().minusSeconds(sessionExpirationTime);
+        openSessions.set(sessionRepository.countOpenedSessionsActiveSince(activeSince));
+        activeGames.set(gameRepository.countByEndTimeIsNull());
+    }
+}
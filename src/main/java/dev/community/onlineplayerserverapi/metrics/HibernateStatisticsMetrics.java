@@ -0,0 +1,46 @@
+package dev.community.onlineplayerserverapi.metrics;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Exposes the Hibernate statistics as counters: statements prepared, entities and collections
+ * loaded, queries executed and the rows those queries returned.
+ */
+@Component
+@RequiredArgsConstructor
+public class HibernateStatisticsMetrics implements MeterBinder {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        counter(registry, statistics, "hibernate.statements.prepared", Statistics::getPrepareStatementCount);
+        counter(registry, statistics, "hibernate.entities.loaded", Statistics::getEntityLoadCount);
+        counter(registry, statistics, "hibernate.entities.fetched", Statistics::getEntityFetchCount);
+        counter(registry, statistics, "hibernate.collections.loaded", Statistics::getCollectionLoadCount);
+        counter(registry, statistics, "hibernate.queries.executed", Statistics::getQueryExecutionCount);
+        counter(registry, statistics, "hibernate.queries.rows", HibernateStatisticsMetrics::queryRowCount);
+    }
+
+    private static void counter(MeterRegistry registry, Statistics statistics, String name,
+                                ToDoubleFunction<Statistics> count) {
+        FunctionCounter.builder(name, statistics, count).register(registry);
+    }
+
+    private static double queryRowCount(Statistics statistics) {
+        return Arrays.stream(statistics.getQueries())
+                .mapToLong(query -> statistics.getQueryStatistics(query).getExecutionRowCount())
+                .sum();
+    }
+}
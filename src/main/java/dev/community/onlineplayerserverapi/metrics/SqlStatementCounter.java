@@ -0,0 +1,27 @@
+package dev.community.onlineplayerserverapi.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Counts the SQL statements Hibernate prepares on the current thread. Registered through
+ * {@code hibernate.session_factory.statement_inspector}, so Hibernate creates the instance and
+ * the count lives in a static thread local.
+ */
+public class SqlStatementCounter implements StatementInspector {
+
+    private static final ThreadLocal<long[]> STATEMENTS = ThreadLocal.withInitial(() -> new long[1]);
+
+    @Override
+    public String inspect(String sql) {
+        STATEMENTS.get()[0]++;
+        return sql;
+    }
+
+    /**
+     * Returns the number of statements prepared so far on the current thread. Callers take the
+     * difference between two readings, so nested measurements do not reset each other.
+     */
+    public static long count() {
+        return STATEMENTS.get()[0];
+    }
+}
@@ -7,5 +7,9 @@ import java.util.List;
 @Data
 public class GameDetailsResponseDto {
     private List<GameDetailsDto> gameDetails;
-    private int totalNumber;
+    /**
+     * Only counted for a request without cursor; cursor pages leave it null.
+     */
+    private Integer totalNumber;
+    private String nextCursor;
 }
@@ -1,5 +1,6 @@
 package dev.community.onlineplayerserverapi.models;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Data;
 
 import java.time.LocalDateTime;
@@ -8,6 +9,8 @@ import java.util.List;
 @Data
 public class GameTeamDetailsDto {
     private List<String> players;
+    @JsonIgnore
+    private List<Long> playerIds;
     private LocalDateTime exitTime;
     private GameResult result;
 }
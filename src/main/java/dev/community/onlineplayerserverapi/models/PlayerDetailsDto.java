@@ -10,4 +10,10 @@ public class PlayerDetailsDto {
     private String country;
 
     private Long totalPlayTime;
+
+    private Integer gamesPlayed;
+
+    private Integer wins;
+
+    private Integer losses;
 }
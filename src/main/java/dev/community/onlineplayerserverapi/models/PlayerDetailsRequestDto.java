@@ -11,5 +11,6 @@ public class PlayerDetailsRequestDto {
     private PlayerFilterDto filter;
     private Integer page;
     private Integer pageSize;
+    private String cursor;
     private String playerToken;
 }
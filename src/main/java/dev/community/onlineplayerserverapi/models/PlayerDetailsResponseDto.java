@@ -9,5 +9,10 @@ public class PlayerDetailsResponseDto {
 
     private List<PlayerDetailsDto> playerDetails;
 
-    int totalPlayers;
+    /**
+     * Only counted for a request without cursor; cursor pages leave it null.
+     */
+    private Integer totalPlayers;
+
+    private String nextCursor;
 }
@@ -7,4 +7,6 @@ import java.util.List;
 @Data
 public class PlayerFilterDto {
     private List<String> nickNames;
+    private String nickNamePrefix;
+    private String nickNameContains;
 }
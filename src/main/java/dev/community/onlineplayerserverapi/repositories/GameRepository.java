@@ -1,12 +1,41 @@
 package dev.community.onlineplayerserverapi.repositories;
 
 import dev.community.onlineplayerserverapi.entities.Game;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface GameRepository extends JpaRepository<Game, Long> {
-    Optional<Game> findFirstByNameOrderByStartTimeDesc(String name);
+    Optional<Game> findFirstByNameAndEndTimeIsNullOrderByStartTimeDesc(String name);
+
+    /**
+     * Loads the open game and increments its version on commit even when it is not modified, so
+     * two transactions deciding on the same game's teams conflict instead of both committing.
+     */
+    @Lock(LockModeType.OPTIMISTIC_FORCE_INCREMENT)
+    Optional<Game> findByActiveName(String activeName);
+
+    long countByEndTimeIsNull();
+
+    @Query("select g.id from Game g where g.id > ?1 and size(g.gameTeams) >= 2 order by g.id")
+    List<Long> findDetailedGameIdsAfter(Long lastId, Limit limit);
+
+    @Query("select g.id from Game g where size(g.gameTeams) >= 2 order by g.id")
+    List<Long> findDetailedGameIds(Pageable pageable);
+
+    @Query("select count(g) from Game g where size(g.gameTeams) >= 2")
+    long countDetailedGames();
+
+    @Query("select g.id as id, g.name as name, g.startTime as startTime, g.endTime as endTime " +
+            "from Game g where g.id in ?1 order by g.id")
+    List<GameSummary> findSummariesByIdIn(Collection<Long> ids);
 }
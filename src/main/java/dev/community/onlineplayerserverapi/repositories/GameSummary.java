@@ -0,0 +1,13 @@
+package dev.community.onlineplayerserverapi.repositories;
+
+import java.time.LocalDateTime;
+
+public interface GameSummary {
+    Long getId();
+
+    String getName();
+
+    LocalDateTime getStartTime();
+
+    LocalDateTime getEndTime();
+}
@@ -0,0 +1,30 @@
+package dev.community.onlineplayerserverapi.repositories;
+
+import dev.community.onlineplayerserverapi.entities.GameTeamMember;
+import dev.community.onlineplayerserverapi.entities.GameTeamMemberId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface GameTeamMemberRepository extends JpaRepository<GameTeamMember, GameTeamMemberId> {
+
+    @Query("select m.teamId from GameTeamMember m, GameTeam t " +
+            "where t.id = m.teamId and t.game.id = ?1 and m.playerId = ?2 and m.isRemaining = true")
+    Optional<Long> findRemainingTeamId(Long gameId, Long playerId);
+
+    @Query("select count(distinct m.teamId) from GameTeamMember m, GameTeam t " +
+            "where t.id = m.teamId and t.game.id = ?1 and m.isRemaining = true")
+    long countTeamsWithRemainingPlayers(Long gameId);
+
+    @Query("select m from GameTeamMember m, GameTeam t where t.id = m.teamId and t.game.id = ?1")
+    List<GameTeamMember> findAllByGameId(Long gameId);
+
+    @Modifying
+    @Query("update GameTeamMember m set m.isRemaining = false where m.teamId = ?1 and m.playerId = ?2")
+    int markLeft(Long teamId, Long playerId);
+}
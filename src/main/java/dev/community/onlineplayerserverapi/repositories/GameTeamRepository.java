@@ -2,8 +2,16 @@ package dev.community.onlineplayerserverapi.repositories;
 
 import dev.community.onlineplayerserverapi.entities.GameTeam;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 @Repository
 public interface GameTeamRepository extends JpaRepository<GameTeam, Long> {
+
+    @Query("select t.game.id as gameId, t.playersIds as playersIds, t.remainingPlayers as remainingPlayers " +
+            "from GameTeam t where t.game.id in ?1 order by t.id")
+    List<GameTeamSummary> findSummariesByGameIdIn(Collection<Long> gameIds);
 }
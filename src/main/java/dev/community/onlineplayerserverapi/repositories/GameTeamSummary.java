@@ -0,0 +1,11 @@
+package dev.community.onlineplayerserverapi.repositories;
+
+import java.util.Set;
+
+public interface GameTeamSummary {
+    Long getGameId();
+
+    Set<Long> getPlayersIds();
+
+    Set<Long> getRemainingPlayers();
+}
@@ -0,0 +1,13 @@
+package dev.community.onlineplayerserverapi.repositories;
+
+import java.time.LocalDateTime;
+
+public interface PlayTimeTotal {
+    Long getPlayerId();
+
+    Long getTotalSeconds();
+
+    Long getSessionCount();
+
+    LocalDateTime getLastLoginTime();
+}
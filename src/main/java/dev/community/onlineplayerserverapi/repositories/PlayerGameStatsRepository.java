@@ -0,0 +1,21 @@
+package dev.community.onlineplayerserverapi.repositories;
+
+import dev.community.onlineplayerserverapi.entities.PlayerGameStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface PlayerGameStatsRepository extends JpaRepository<PlayerGameStats, Long> {
+
+    /**
+     * Adds one game to the player's stats, creating the row on the first game. A single upsert, so
+     * two games of a new player ending at once cannot both try to insert the row.
+     */
+    @Modifying
+    @Query("insert into PlayerGameStats (playerId, gamesPlayed, wins, losses) values (?1, 1, ?2, ?3) " +
+            "on conflict(playerId) do update set gamesPlayed = gamesPlayed + 1, wins = wins + excluded.wins, " +
+            "losses = losses + excluded.losses")
+    int addGameResult(Long playerId, int wins, int losses);
+}
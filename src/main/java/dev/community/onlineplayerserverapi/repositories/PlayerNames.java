@@ -0,0 +1,13 @@
+package dev.community.onlineplayerserverapi.repositories;
+
+import java.time.LocalDateTime;
+
+public interface PlayerNames {
+    Long getId();
+
+    String getNickName();
+
+    String getEmail();
+
+    LocalDateTime getCreatedAt();
+}
@@ -0,0 +1,7 @@
+package dev.community.onlineplayerserverapi.repositories;
+
+public interface PlayerNickName {
+    Long getId();
+
+    String getNickName();
+}
@@ -0,0 +1,61 @@
+package dev.community.onlineplayerserverapi.repositories;
+
+import dev.community.onlineplayerserverapi.entities.PlayerPlayTime;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+@Repository
+public interface PlayerPlayTimeRepository extends JpaRepository<PlayerPlayTime, Long> {
+
+    /**
+     * Adds one closed session to the player's rollup, creating the row if it does not exist yet,
+     * in a single upsert that cannot race with another close on the primary key.
+     */
+    @Modifying
+    @Query("insert into PlayerPlayTime (playerId, totalSeconds, sessionCount, lastLoginTime) values (?1, ?2, 1, ?3) " +
+            "on conflict(playerId) do update set totalSeconds = totalSeconds + excluded.totalSeconds, " +
+            "sessionCount = sessionCount + 1, lastLoginTime = case when lastLoginTime is null " +
+            "or lastLoginTime < excluded.lastLoginTime then excluded.lastLoginTime else lastLoginTime end")
+    int addClosedSession(Long playerId, long sessionSeconds, LocalDateTime loginTime);
+
+    /**
+     * Adds the sessions {@link SessionRepository#closeOpenedSessions} is about to close, with the
+     * same parameters, so both run without loading the sessions. The sessions must be locked
+     * first, see {@link SessionRepository#lockOpenedSessionIdsOfPlayer}.
+     */
+    @Modifying
+    @Query("update PlayerPlayTime pt set " +
+            "pt.totalSeconds = pt.totalSeconds + coalesce((select sum((" + SessionRepository.CLOSED_LAST_ACTIVITY_TIME +
+            " - ps.loginTime) by second) from PlayerSession ps where ps.playerId = pt.playerId and " +
+            SessionRepository.OPENED_AMONG_IDS + "), 0), " +
+            "pt.sessionCount = pt.sessionCount + (select count(ps) from PlayerSession ps " +
+            "where ps.playerId = pt.playerId and " + SessionRepository.OPENED_AMONG_IDS + "), " +
+            "pt.lastLoginTime = coalesce((select max(ps.loginTime) from PlayerSession ps where ps.playerId = pt.playerId " +
+            "and " + SessionRepository.OPENED_AMONG_IDS + " and (pt.lastLoginTime is null or ps.loginTime > pt.lastLoginTime)), " +
+            "pt.lastLoginTime) " +
+            "where pt.playerId in (select ps.playerId from PlayerSession ps where " + SessionRepository.OPENED_AMONG_IDS + ")")
+    int addOpenedSessions(Collection<Long> sessionIds, LocalDateTime activeSince, LocalDateTime closeTime,
+                          boolean recentlyActive);
+
+    /**
+     * Adds the sessions {@link SessionRepository#closeExpiredSessions} is about to close, with the
+     * same parameters, to the rollups of their players. The sessions must be locked first, see
+     * {@link SessionRepository#lockExpiredSessionIds}, so no one else closes them in between.
+     */
+    @Modifying
+    @Query("update PlayerPlayTime pt set " +
+            "pt.totalSeconds = pt.totalSeconds + coalesce((select sum((ps.lastActivityTime - ps.loginTime) by second) " +
+            "from PlayerSession ps where ps.playerId = pt.playerId and " + SessionRepository.EXPIRED_AMONG_IDS + "), 0), " +
+            "pt.sessionCount = pt.sessionCount + (select count(ps) from PlayerSession ps " +
+            "where ps.playerId = pt.playerId and " + SessionRepository.EXPIRED_AMONG_IDS + "), " +
+            "pt.lastLoginTime = coalesce((select max(ps.loginTime) from PlayerSession ps where ps.playerId = pt.playerId " +
+            "and " + SessionRepository.EXPIRED_AMONG_IDS + " and (pt.lastLoginTime is null or ps.loginTime > pt.lastLoginTime)), " +
+            "pt.lastLoginTime) " +
+            "where pt.playerId in (select ps.playerId from PlayerSession ps where " + SessionRepository.EXPIRED_AMONG_IDS + ")")
+    int addExpiredSessions(Collection<Long> sessionIds, LocalDateTime expiredBefore);
+}
@@ -2,14 +2,34 @@ package dev.community.onlineplayerserverapi.repositories;
 
 import dev.community.onlineplayerserverapi.entities.Player;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface PlayerRepository extends JpaRepository<Player, Long> {
+public interface PlayerRepository extends JpaRepository<Player, Long>, JpaSpecificationExecutor<Player> {
 
     Optional<Player> findByNickName(String nickName);
 
     Optional<Player> findByEmail(String email);
+
+    boolean existsByNickName(String nickName);
+
+    boolean existsByEmail(String email);
+
+    @Query("select p.id as id, p.nickName as nickName, p.email as email, p.createdAt as createdAt from Player p " +
+            "where p.createdAt > ?1 or (p.createdAt = ?1 and p.id > ?2) order by p.createdAt, p.id")
+    List<PlayerNames> findNamesCreatedAfter(LocalDateTime createdAfter, Long lastId, Limit limit);
+
+    @Query("select p.id from Player p where p.id > ?1 order by p.id")
+    List<Long> findIdsAfter(Long lastId, Limit limit);
+
+    @Query("select p.id as id, p.nickName as nickName from Player p where p.id in ?1")
+    List<PlayerNickName> findNickNamesByIdIn(Collection<Long> ids);
 }
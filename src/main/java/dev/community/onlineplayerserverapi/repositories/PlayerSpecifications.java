@@ -0,0 +1,52 @@
+package dev.community.onlineplayerserverapi.repositories;
+
+import dev.community.onlineplayerserverapi.entities.Player;
+import dev.community.onlineplayerserverapi.models.PlayerFilterDto;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.util.StringUtils;
+
+import java.util.Collection;
+
+public final class PlayerSpecifications {
+
+    private static final char LIKE_ESCAPE = '\\';
+
+    private PlayerSpecifications() {
+    }
+
+    public static Specification<Player> idGreaterThan(Long lastId) {
+        return (root, query, builder) -> builder.greaterThan(root.get("id"), lastId);
+    }
+
+    public static Specification<Player> nickNameIn(Collection<String> nickNames) {
+        return (root, query, builder) -> root.get("nickName").in(nickNames);
+    }
+
+    /**
+     * Prefix and contains matching from the filter; the nickname IN-list is applied separately
+     * because large lists have to be split in batches.
+     */
+    public static Specification<Player> nickNameMatching(PlayerFilterDto playerFilterDto) {
+        Specification<Player> specification = Specification.unrestricted();
+        if (playerFilterDto == null) {
+            return specification;
+        }
+        if (StringUtils.hasLength(playerFilterDto.getNickNamePrefix())) {
+            specification = specification.and(nickNameLike(escapeLike(playerFilterDto.getNickNamePrefix()) + "%"));
+        }
+        if (StringUtils.hasLength(playerFilterDto.getNickNameContains())) {
+            specification = specification.and(nickNameLike("%" + escapeLike(playerFilterDto.getNickNameContains()) + "%"));
+        }
+        return specification;
+    }
+
+    private static Specification<Player> nickNameLike(String pattern) {
+        return (root, query, builder) -> builder.like(root.get("nickName"), pattern, LIKE_ESCAPE);
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+    }
+}
@@ -0,0 +1,25 @@
+package dev.community.onlineplayerserverapi.repositories;
+
+import dev.community.onlineplayerserverapi.entities.PlayerSessionArchive;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface SessionArchiveRepository extends JpaRepository<PlayerSessionArchive, Long> {
+
+    @Modifying
+    @Query("insert into PlayerSessionArchive (id, playerId, sessionToken, loginTime, lastActivityTime) " +
+            "select ps.id, ps.playerId, ps.sessionToken, ps.loginTime, ps.lastActivityTime " +
+            "from PlayerSession ps where ps.id in ?1 and ps.isClosed = TRUE")
+    int copyClosedSessions(Collection<Long> sessionIds);
+
+    @Query("select psa.playerId as playerId, sum((psa.lastActivityTime - psa.loginTime) by second) as totalSeconds, " +
+            "count(psa) as sessionCount, max(psa.loginTime) as lastLoginTime " +
+            "from PlayerSessionArchive psa where psa.playerId in ?1 group by psa.playerId")
+    List<PlayTimeTotal> sumPlayTimeByPlayerIds(Collection<Long> playerIds);
+}
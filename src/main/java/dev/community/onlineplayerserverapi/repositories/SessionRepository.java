@@ -1,15 +1,38 @@
 package dev.community.onlineplayerserverapi.repositories;
 
 import dev.community.onlineplayerserverapi.entities.PlayerSession;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface SessionRepository extends JpaRepository<PlayerSession, Long> {
 
+    /**
+     * Last activity time of an opened session {@code ps} once closed at {@code ?3}: sessions
+     * active after {@code ?2}, or known to be recently active ({@code ?4}), count until the close.
+     */
+    String CLOSED_LAST_ACTIVITY_TIME =
+            "case when ?4 = TRUE or ps.lastActivityTime > ?2 then ?3 else ps.lastActivityTime end";
+
+    /**
+     * Opened sessions {@code ps} among the ids {@code ?1} without activity after {@code ?2}.
+     */
+    String EXPIRED_AMONG_IDS = "ps.id in ?1 and ps.isClosed = FALSE and ps.lastActivityTime <= ?2";
+
+    /**
+     * Sessions {@code ps} among the ids {@code ?1} that are still opened.
+     */
+    String OPENED_AMONG_IDS = "ps.id in ?1 and ps.isClosed = FALSE";
+
     @Query("select ps from PlayerSession ps where ps.playerId = ?1 and ps.isClosed != TRUE")
     PlayerSession findOpenedSessionByPlayerId(Long playerId);
 
@@ -17,4 +40,70 @@ public interface SessionRepository extends JpaRepository<PlayerSession, Long> {
     PlayerSession findOpenedSessionByToken(String token);
 
     List<PlayerSession> findPlayerSessionsByPlayerId(Long playerId);
+
+    @Query("select ps from PlayerSession ps where ps.playerId in ?1 and ps.isClosed != TRUE")
+    List<PlayerSession> findOpenedSessionsByPlayerIds(Collection<Long> playerIds);
+
+
+    @Query("select count(ps) from PlayerSession ps where ps.isClosed != TRUE and ps.lastActivityTime >= ?1")
+    long countOpenedSessionsActiveSince(LocalDateTime activeSince);
+
+    @Query("select ps.playerId as playerId, sum((ps.lastActivityTime - ps.loginTime) by second) as totalSeconds, " +
+            "count(ps) as sessionCount, max(ps.loginTime) as lastLoginTime " +
+            "from PlayerSession ps where ps.playerId in ?1 and ps.isClosed = TRUE group by ps.playerId")
+    List<PlayTimeTotal> sumClosedPlayTimeByPlayerIds(Collection<Long> playerIds);
+
+    /**
+     * Closes the session only while it is still opened, so of a logout and an expiry sweep racing
+     * on it exactly one sees an updated row.
+     */
+    @Modifying
+    @Query("update PlayerSession ps set ps.isClosed = TRUE, ps.lastActivityTime = ?2 " +
+            "where ps.id = ?1 and ps.isClosed = FALSE")
+    int closeOpenedSession(Long sessionId, LocalDateTime lastActivityTime);
+
+    /**
+     * Locks the player's opened sessions until the transaction ends, as
+     * {@link #lockExpiredSessionIds} does for the expiry sweep.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select ps.id from PlayerSession ps where ps.playerId = ?1 and ps.isClosed = FALSE")
+    List<Long> lockOpenedSessionIdsOfPlayer(Long playerId);
+
+    @Modifying
+    @Query("update PlayerSession ps set ps.isClosed = TRUE, ps.lastActivityTime = " + CLOSED_LAST_ACTIVITY_TIME +
+            " where " + OPENED_AMONG_IDS)
+    int closeOpenedSessions(Collection<Long> sessionIds, LocalDateTime activeSince, LocalDateTime closeTime,
+                            boolean recentlyActive);
+
+    @Query("select ps.id from PlayerSession ps " +
+            "where ps.isClosed = FALSE and ps.lastActivityTime <= ?1 and ps.id > ?2 order by ps.id")
+    List<Long> findExpiredOpenedSessionIdsAfter(LocalDateTime expiredBefore, Long lastId, Limit limit);
+
+    /**
+     * Locks the sessions among the ids that are still opened and expired, until the transaction
+     * ends. Waiting on a lock re-reads the row, so a session closed meanwhile is left out.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select ps.id from PlayerSession ps where " + EXPIRED_AMONG_IDS)
+    List<Long> lockExpiredSessionIds(Collection<Long> sessionIds, LocalDateTime expiredBefore);
+
+    @Query("select distinct ps.playerId from PlayerSession ps where " + EXPIRED_AMONG_IDS +
+            " and not exists (select pt from PlayerPlayTime pt where pt.playerId = ps.playerId)")
+    List<Long> findPlayerIdsWithoutRollupOfExpiredSessions(Collection<Long> sessionIds, LocalDateTime expiredBefore);
+
+    /**
+     * Expired sessions keep their last activity time when closed, as {@link #CLOSED_LAST_ACTIVITY_TIME} does.
+     */
+    @Modifying
+    @Query("update PlayerSession ps set ps.isClosed = TRUE where " + EXPIRED_AMONG_IDS)
+    int closeExpiredSessions(Collection<Long> sessionIds, LocalDateTime expiredBefore);
+
+    @Query("select ps.id from PlayerSession ps " +
+            "where ps.isClosed = TRUE and ps.lastActivityTime <= ?1 and ps.id > ?2 order by ps.id")
+    List<Long> findClosedSessionIdsAfter(LocalDateTime closedBefore, Long lastId, Limit limit);
+
+    @Modifying
+    @Query("delete from PlayerSession ps where ps.id in ?1 and ps.isClosed = TRUE")
+    int deleteClosedSessions(Collection<Long> sessionIds);
 }
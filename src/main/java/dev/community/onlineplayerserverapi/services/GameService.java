@@ -1,14 +1,24 @@
 package dev.community.onlineplayerserverapi.services;
 
 import dev.community.onlineplayerserverapi.entities.Game;
+import dev.community.onlineplayerserverapi.entities.PlayerGameStats;
+import dev.community.onlineplayerserverapi.models.GameDetailsDto;
 import dev.community.onlineplayerserverapi.models.GameDetailsResponseDto;
 import dev.community.onlineplayerserverapi.models.PlayerDetailsRequestDto;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
 public interface GameService {
     Game createGame(String name, Long hostPlayerId);
     Game joinGame(String name, Long playerId);
     void leaveGame(String name, Long playerId);
     GameDetailsResponseDto getGameDetails(PlayerDetailsRequestDto playerDetailsRequestDto);
+    void streamGameDetails(PlayerDetailsRequestDto playerDetailsRequestDto, Consumer<List<GameDetailsDto>> chunkConsumer);
 
     int getGamesPlayed(Long playerId);
+
+    Map<Long, PlayerGameStats> getGameStats(Collection<Long> playerIds);
 }
@@ -2,125 +2,261 @@ package dev.community.onlineplayerserverapi.services;
 
 import dev.community.onlineplayerserverapi.entities.Game;
 import dev.community.onlineplayerserverapi.entities.GameTeam;
+import dev.community.onlineplayerserverapi.entities.GameTeamMember;
+import dev.community.onlineplayerserverapi.entities.PlayerGameStats;
 import dev.community.onlineplayerserverapi.models.*;
 import dev.community.onlineplayerserverapi.repositories.GameRepository;
+import dev.community.onlineplayerserverapi.repositories.GameSummary;
+import dev.community.onlineplayerserverapi.repositories.GameTeamMemberRepository;
 import dev.community.onlineplayerserverapi.repositories.GameTeamRepository;
-import lombok.AllArgsConstructor;
+import dev.community.onlineplayerserverapi.repositories.GameTeamSummary;
+import dev.community.onlineplayerserverapi.repositories.PlayerGameStatsRepository;
+import dev.community.onlineplayerserverapi.utils.Batches;
+import dev.community.onlineplayerserverapi.utils.IncludedFields;
+import dev.community.onlineplayerserverapi.utils.KeysetCursor;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
-@AllArgsConstructor
+@Timed(value = "service.method", histogram = true)
+@RequiredArgsConstructor
 public class GameServiceImpl implements GameService {
 
     private final GameRepository gameRepository;
     private final GameTeamRepository gameTeamRepository;
+    private final GameTeamMemberRepository gameTeamMemberRepository;
+    private final PlayerGameStatsRepository playerGameStatsRepository;
+    private final LobbyRegistry lobbyRegistry;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
 
-    @Override
-    @Transactional
-    public Game createGame(String name, Long hostPlayerId) {
-        Optional<Game> foundGame = gameRepository.findFirstByNameOrderByStartTimeDesc(name)
-                .filter(game -> game.getEndTime() == null);
-        if (foundGame.isPresent()) {
-            throw new IllegalStateException("A game with this name already exists.");
-        }
+    private static final Set<String> GAME_DETAILS_FIELDS =
+            Set.of("gameName", "duration", "startTime", "endTime", "teamsDetails");
 
-        Game newGame = new Game();
-        newGame.setName(name);
-        newGame.setHostPlayerId(hostPlayerId);
-        newGame.setStartTime(LocalDateTime.now());
-        newGame.setGameTeams(new ArrayList<>());
+    @Value("${features.games.details.maxPageSize:1000}")
+    private Integer maxPageSize;
 
-        Game savedGame = gameRepository.save(newGame);
+    @Value("${features.games.create.maxAttempts:3}")
+    private Integer createGameMaxAttempts;
 
-        GameTeam hostTeam = createTeamForPlayer(savedGame, hostPlayerId);
-        savedGame.getGameTeams().add(hostTeam);
+    @Value("${features.games.join.maxAttempts:3}")
+    private Integer joinGameMaxAttempts;
 
-        return gameRepository.save(savedGame);
+    @Value("${features.games.leave.maxAttempts:3}")
+    private Integer leaveGameMaxAttempts;
+
+    /**
+     * Inserts the game with its name in the unique active name column instead of locking. When a
+     * concurrent create wins, the insert fails and the attempt is repeated in a new transaction,
+     * which then either sees the winner or finds the name free again. The lobby registry only
+     * knows this instance, so a lobby registered under the name is dropped unless the database
+     * still has the game open.
+     */
+    @Override
+    public Game createGame(String name, Long hostPlayerId) {
+        Optional<LobbyRegistry.Lobby> registeredLobby = lobbyRegistry.find(name);
+        if (registeredLobby.isPresent()) {
+            if (gameRepository.findFirstByNameAndEndTimeIsNullOrderByStartTimeDesc(name).isPresent()) {
+                throw new IllegalStateException("A game with this name already exists.");
+            }
+            lobbyRegistry.remove(registeredLobby.get());
+        }
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> insertGame(name, hostPlayerId));
+            } catch (DataIntegrityViolationException e) {
+                if (attempt >= createGameMaxAttempts) {
+                    throw new IllegalStateException("A game with this name already exists.");
+                }
+            }
+        }
     }
 
+    /**
+     * Decided by the lobby registry. The game is read with a forced version increment first, so a
+     * lobby behind the database is reloaded and concurrent joins on other instances conflict; the
+     * losing transaction is repeated with fresh data a bounded number of times.
+     */
     @Override
-    @Transactional
     public Game joinGame(String name, Long playerId) {
-        Game game = gameRepository.findFirstByNameOrderByStartTimeDesc(name)
-                .filter(foundGame -> foundGame.getEndTime() == null &&
-                        // avoid false signals
-                        LocalDateTime.now().isBefore(foundGame.getStartTime().plusMinutes(10)))
-                .orElseThrow(() -> new IllegalStateException("Game not found."));
-
-        boolean playerAlreadyInGame = game.getGameTeams().stream()
-                .anyMatch(team -> team.getPlayersIds().contains(playerId));
-
-        if (playerAlreadyInGame) {
-            throw new IllegalStateException("Player is already in this game.");
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> joinGameOnce(name, playerId));
+            } catch (OptimisticLockingFailureException e) {
+                boolean exhausted = attempt >= joinGameMaxAttempts;
+                meterRegistry.counter("games.optimistic.conflicts",
+                        "operation", "join", "outcome", exhausted ? "exhausted" : "retried").increment();
+                if (exhausted) {
+                    throw new IllegalStateException("The game is busy, please try again.");
+                }
+            }
         }
-
-        GameTeam newTeam = createTeamForPlayer(game, playerId);
-        game.getGameTeams().add(newTeam);
-
-        return gameRepository.save(game);
     }
 
+    /**
+     * Decided by the lobby registry while the game can be joined, by the team members in the
+     * database afterwards. Either way the game is read with a forced version increment first, so
+     * concurrent leaves and joins of the same game conflict on its version; the losing transaction
+     * is repeated with fresh data a bounded number of times.
+     */
     @Override
-    @Transactional
     public void leaveGame(String name, Long playerId) {
-        Game game = gameRepository.findFirstByNameOrderByStartTimeDesc(name)
-                .filter(foundGame -> foundGame.getEndTime() == null)
-                .orElseThrow(() -> new IllegalStateException("Game not found."));
-
-        Optional<GameTeam> activeTeamOpt = game.getGameTeams().stream()
-                .filter(team -> team.getRemainingPlayers().contains(playerId))
-                .findFirst();
-
-        if (activeTeamOpt.isPresent()) {
-            GameTeam activeTeam = activeTeamOpt.get();
-            long teamsWithPlayersCount = game.getGameTeams().stream()
-                    .filter(team -> !team.getRemainingPlayers().isEmpty())
-                    .count();
-
-            if (teamsWithPlayersCount == 1) {
-                game.setEndTime(LocalDateTime.now());
-                gameRepository.save(game);
-            } else {
-                activeTeam.getRemainingPlayers().remove(playerId);
-                gameTeamRepository.save(activeTeam);
+        for (int attempt = 1; ; attempt++) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> leaveGameOnce(name, playerId));
+                return;
+            } catch (OptimisticLockingFailureException e) {
+                boolean exhausted = attempt >= leaveGameMaxAttempts;
+                meterRegistry.counter("games.optimistic.conflicts",
+                        "operation", "leave", "outcome", exhausted ? "exhausted" : "retried").increment();
+                if (exhausted) {
+                    throw new IllegalStateException("The game is busy, please try again.");
+                }
             }
         }
     }
 
+    /**
+     * Returns one page of games having at least two teams. The team count is checked in the query,
+     * and only the games of the page are loaded with their teams.
+     */
     @Override
     public GameDetailsResponseDto getGameDetails(PlayerDetailsRequestDto playerDetailsRequestDto) {
-        List<Game> games = gameRepository.findAll();
-        Set<String> includedFields = playerDetailsRequestDto.getIncludes() != null ?
-                playerDetailsRequestDto.getIncludes() : Set.of();
+        int pageSize = resolvePageSize(playerDetailsRequestDto.getPageSize());
+        Set<String> includedFields = IncludedFields.of(playerDetailsRequestDto);
 
-        List<GameDetailsDto> gameDetailsDtos = games.stream()
-                .filter(game -> game.getGameTeams().size() >= 2)
-                .map(game -> mapGameToDetailsDto(game, includedFields))
-                .collect(Collectors.toList());
+        List<Long> gameIds;
+        if (playerDetailsRequestDto.getCursor() != null) {
+            gameIds = gameRepository.findDetailedGameIdsAfter(KeysetCursor.decode(playerDetailsRequestDto.getCursor()),
+                    Limit.of(pageSize));
+        } else if (playerDetailsRequestDto.getPage() != null && playerDetailsRequestDto.getPage() > 0) {
+            gameIds = gameRepository.findDetailedGameIds(PageRequest.of(playerDetailsRequestDto.getPage(), pageSize));
+        } else {
+            gameIds = gameRepository.findDetailedGameIdsAfter(0L, Limit.of(pageSize));
+        }
 
         GameDetailsResponseDto responseDto = new GameDetailsResponseDto();
-        responseDto.setGameDetails(gameDetailsDtos);
-        responseDto.setTotalNumber(gameDetailsDtos.size());
+        responseDto.setGameDetails(loadGameDetails(gameIds, includedFields));
+        if (playerDetailsRequestDto.getCursor() == null) {
+            // the first or an offset page; following pages by cursor do not count again
+            responseDto.setTotalNumber((int) gameRepository.countDetailedGames());
+        }
+        if (gameIds.size() == pageSize) {
+            responseDto.setNextCursor(KeysetCursor.encode(gameIds.get(pageSize - 1)));
+        }
 
         return responseDto;
     }
 
+    /**
+     * Walks all games having at least two teams by id, handing each chunk to the consumer before
+     * the next one is read, so memory stays bounded by the chunk size.
+     */
+    @Override
+    public void streamGameDetails(PlayerDetailsRequestDto playerDetailsRequestDto,
+                                  Consumer<List<GameDetailsDto>> chunkConsumer) {
+        int chunkSize = resolvePageSize(playerDetailsRequestDto.getPageSize());
+        Set<String> includedFields = IncludedFields.of(playerDetailsRequestDto);
+
+        Long lastId = playerDetailsRequestDto.getCursor() != null ?
+                KeysetCursor.decode(playerDetailsRequestDto.getCursor()) : 0L;
+        List<Long> gameIds;
+        do {
+            gameIds = gameRepository.findDetailedGameIdsAfter(lastId, Limit.of(chunkSize));
+            if (!gameIds.isEmpty()) {
+                chunkConsumer.accept(loadGameDetails(gameIds, includedFields));
+                lastId = gameIds.get(gameIds.size() - 1);
+            }
+        } while (gameIds.size() == chunkSize);
+    }
+
     @Override
     public int getGamesPlayed(Long playerId) {
-        return 0;
+        return playerGameStatsRepository.findById(playerId)
+                .map(PlayerGameStats::getGamesPlayed)
+                .orElse(0);
+    }
+
+    @Override
+    public Map<Long, PlayerGameStats> getGameStats(Collection<Long> playerIds) {
+        Map<Long, PlayerGameStats> gameStats = new HashMap<>();
+        for (List<Long> batch : Batches.partition(playerIds, Batches.IN_LIST_BATCH_SIZE)) {
+            playerGameStatsRepository.findAllById(batch)
+                    .forEach(stats -> gameStats.put(stats.getPlayerId(), stats));
+        }
+        return gameStats;
+    }
+
+    /**
+     * Counts the ended game for each member, in the same transaction that ends it. A team still
+     * having players wins, the others lose; games with a single team are not counted, the same as
+     * in the game details.
+     */
+    private void recordGameResults(Long gameId) {
+        Map<Long, List<GameTeamMember>> membersByTeam = gameTeamMemberRepository.findAllByGameId(gameId).stream()
+                .collect(Collectors.groupingBy(GameTeamMember::getTeamId));
+        if (membersByTeam.size() < 2) {
+            return;
+        }
+        membersByTeam.values().forEach(members -> {
+            boolean victory = members.stream().anyMatch(GameTeamMember::getIsRemaining);
+            members.forEach(member -> playerGameStatsRepository.addGameResult(member.getPlayerId(),
+                    victory ? 1 : 0, victory ? 0 : 1));
+        });
+    }
+
+    /**
+     * Reads only what the included fields need: the game columns through a scalar projection, and
+     * the teams only when teamsDetails is asked for. No game entity or EAGER team fetch is involved.
+     */
+    private List<GameDetailsDto> loadGameDetails(List<Long> gameIds, Set<String> includedFields) {
+        if (gameIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        if (Collections.disjoint(includedFields, GAME_DETAILS_FIELDS)) {
+            return gameIds.stream().map(gameId -> new GameDetailsDto()).collect(Collectors.toList());
+        }
+
+        Map<Long, List<GameTeamSummary>> teamsByGameId = includedFields.contains("teamsDetails") ?
+                gameTeamRepository.findSummariesByGameIdIn(gameIds).stream()
+                        .collect(Collectors.groupingBy(GameTeamSummary::getGameId)) : Map.of();
+        return gameRepository.findSummariesByIdIn(gameIds).stream()
+                .map(game -> mapGameToDetailsDto(game, teamsByGameId.getOrDefault(game.getId(), List.of()),
+                        includedFields))
+                .collect(Collectors.toList());
     }
 
-    private GameDetailsDto mapGameToDetailsDto(Game game, Set<String> includedFields) {
+    private int resolvePageSize(Integer requestedPageSize) {
+        if (requestedPageSize == null || requestedPageSize <= 0) {
+            return maxPageSize;
+        }
+        return Math.min(requestedPageSize, maxPageSize);
+    }
+
+    private GameDetailsDto mapGameToDetailsDto(GameSummary game, List<GameTeamSummary> gameTeams,
+                                               Set<String> includedFields) {
         GameDetailsDto dto = new GameDetailsDto();
         if (includedFields.contains("gameName")) {
             dto.setGameName(game.getName());
@@ -135,19 +271,19 @@ public class GameServiceImpl implements GameService {
             dto.setEndTime(game.getEndTime());
         }
         if (includedFields.contains("teamsDetails")) {
-            dto.setTeamsDetails(game.getGameTeams().stream()
-                    .map(this::mapGameTeamToDetailsDto)
+            dto.setTeamsDetails(gameTeams.stream()
+                    .map(gameTeam -> mapGameTeamToDetailsDto(gameTeam, game.getEndTime()))
                     .collect(Collectors.toList()));
         }
         return dto;
     }
 
-    private GameTeamDetailsDto mapGameTeamToDetailsDto(GameTeam gameTeam) {
+    private GameTeamDetailsDto mapGameTeamToDetailsDto(GameTeamSummary gameTeam, LocalDateTime gameEndTime) {
         GameTeamDetailsDto dto = new GameTeamDetailsDto();
-        dto.setPlayers(gameTeam.getPlayersIds().stream().map(String::valueOf).collect(Collectors.toList()));
+        dto.setPlayerIds(new ArrayList<>(gameTeam.getPlayersIds()));
 
-        if (gameTeam.getGame().getEndTime() != null) {
-            dto.setExitTime(gameTeam.getGame().getEndTime());
+        if (gameEndTime != null) {
+            dto.setExitTime(gameEndTime);
             if (gameTeam.getRemainingPlayers().isEmpty()) {
                 dto.setResult(GameResult.DEFEAT);
             } else {
@@ -157,7 +293,132 @@ public class GameServiceImpl implements GameService {
         return dto;
     }
 
+    private Game insertGame(String name, Long hostPlayerId) {
+        Optional<Game> foundGame = gameRepository.findFirstByNameAndEndTimeIsNullOrderByStartTimeDesc(name);
+        if (foundGame.isPresent()) {
+            throw new IllegalStateException("A game with this name already exists.");
+        }
+
+        Game newGame = new Game();
+        newGame.setName(name);
+        newGame.setActiveName(name);
+        newGame.setHostPlayerId(hostPlayerId);
+        newGame.setStartTime(LocalDateTime.now());
+        GameTeam hostTeam = newTeamForPlayer(newGame, hostPlayerId);
+        newGame.setGameTeams(new ArrayList<>(List.of(hostTeam)));
+
+        // ids come from pooled sequences, so nothing is written before the flush: the game, its
+        // team and the member go out as one batch, and a taken name fails here
+        Game savedGame = gameRepository.save(newGame);
+        gameTeamMemberRepository.save(new GameTeamMember(hostTeam.getId(), hostPlayerId, true));
+        gameRepository.flush();
+
+        lobbyRegistry.registerOnCommit(LobbyRegistry.Lobby.of(name, savedGame.getId(), savedGame.getStartTime(),
+                savedGame.getVersion(), List.of(new GameTeamMember(hostTeam.getId(), hostPlayerId, true))));
+
+        return savedGame;
+    }
+
+    private Game joinGameOnce(String name, Long playerId) {
+        Game game = gameRepository.findByActiveName(name)
+                .orElseThrow(() -> new IllegalStateException("Game not found."));
+        LobbyRegistry.Draft draft = currentDraft(game);
+        if (draft == null) {
+            throw new IllegalStateException("Game not found.");
+        }
+
+        switch (draft.join(playerId)) {
+            case CLOSED -> throw new IllegalStateException("Game not found.");
+            case ALREADY_IN_GAME -> throw new IllegalStateException("Player is already in this game.");
+            case JOINED -> { }
+        }
+
+        GameTeam newTeam = createTeamForPlayer(game, playerId);
+        draft.assignTeam(playerId, newTeam.getId());
+        lobbyRegistry.publishOnCommit(draft);
+
+        return game;
+    }
+
+    private void leaveGameOnce(String name, Long playerId) {
+        Game game = gameRepository.findByActiveName(name)
+                .orElseThrow(() -> new IllegalStateException("Game not found."));
+        LobbyRegistry.Draft draft = currentDraft(game);
+        if (draft != null) {
+            leaveLobby(game, draft, playerId);
+            return;
+        }
+
+        Optional<Long> activeTeamId = gameTeamMemberRepository.findRemainingTeamId(game.getId(), playerId);
+
+        if (activeTeamId.isPresent()) {
+            long teamsWithPlayersCount = gameTeamMemberRepository.countTeamsWithRemainingPlayers(game.getId());
+
+            if (teamsWithPlayersCount == 1) {
+                endGame(game);
+            } else {
+                leaveTeam(activeTeamId.get(), playerId);
+            }
+        }
+    }
+
+    private void leaveLobby(Game game, LobbyRegistry.Draft draft, Long playerId) {
+        // published even when the player is not in the game: the forced increment moves the
+        // version on commit either way, and the lobby has to follow it
+        LobbyRegistry.Departure departure = draft.leave(playerId);
+        lobbyRegistry.publishOnCommit(draft);
+        switch (departure.result()) {
+            case NOT_IN_GAME -> { }
+            case LAST_TEAM_LEFT -> endGame(game);
+            case LEFT -> leaveTeam(departure.teamId(), playerId);
+        }
+    }
+
+    private void endGame(Game game) {
+        game.setEndTime(LocalDateTime.now());
+        game.setActiveName(null);
+        gameRepository.save(game);
+        recordGameResults(game.getId());
+    }
+
+    private void leaveTeam(Long teamId, Long playerId) {
+        GameTeam activeTeam = gameTeamRepository.findById(teamId)
+                .orElseThrow(() -> new IllegalStateException("Team not found."));
+        activeTeam.getRemainingPlayers().remove(playerId);
+        gameTeamRepository.save(activeTeam);
+        gameTeamMemberRepository.markLeft(teamId, playerId);
+    }
+
+    /**
+     * Drafts on the registered lobby of the game when it reflects the version just read,
+     * otherwise replaces it with one loaded from the database. Returns null once the join window
+     * has passed.
+     */
+    private LobbyRegistry.Draft currentDraft(Game game) {
+        Optional<LobbyRegistry.Lobby> registeredLobby = lobbyRegistry.find(game.getName());
+        if (registeredLobby.isPresent()) {
+            Optional<LobbyRegistry.Draft> draft = registeredLobby.get().draftAt(game.getVersion());
+            if (draft.isPresent()) {
+                return draft.get();
+            }
+            lobbyRegistry.remove(registeredLobby.get());
+        }
+        if (!LobbyRegistry.isJoinable(game.getStartTime())) {
+            return null;
+        }
+        LobbyRegistry.Lobby loadedLobby = LobbyRegistry.Lobby.of(game.getName(), game.getId(), game.getStartTime(),
+                game.getVersion(), gameTeamMemberRepository.findAllByGameId(game.getId()));
+        lobbyRegistry.register(loadedLobby);
+        return loadedLobby.draftAt(game.getVersion()).orElseThrow();
+    }
+
     private GameTeam createTeamForPlayer(Game game, Long playerId) {
+        GameTeam savedTeam = gameTeamRepository.save(newTeamForPlayer(game, playerId));
+        gameTeamMemberRepository.save(new GameTeamMember(savedTeam.getId(), playerId, true));
+        return savedTeam;
+    }
+
+    private GameTeam newTeamForPlayer(Game game, Long playerId) {
         GameTeam newTeam = new GameTeam();
         newTeam.setGame(game);
 
@@ -166,7 +427,6 @@ public class GameServiceImpl implements GameService {
 
         newTeam.setPlayersIds(playerSet);
         newTeam.setRemainingPlayers(new HashSet<>(playerSet));
-
-        return gameTeamRepository.save(newTeam);
+        return newTeam;
     }
 }
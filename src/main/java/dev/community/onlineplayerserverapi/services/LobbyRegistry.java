@@ -0,0 +1,251 @@
+package dev.community.onlineplayerserverapi.services;
+
+import dev.community.onlineplayerserverapi.entities.GameTeamMember;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * In-memory registry of the games that can still be joined, by name. While a game is in its join
+ * window, joins and leaves are decided on a {@link Draft}: a private copy of the members as of
+ * the last committed game version. The registry only ever holds committed state. A draft is
+ * published once its transaction commits, and only over the state it was taken from.
+ * <p>
+ * The registry is local to the instance. The caller reads the game with a forced version
+ * increment before deciding, and takes a draft only from a lobby at that version. Decisions
+ * taken on other instances are therefore seen, and concurrent ones conflict in the database.
+ */
+@Component
+public class LobbyRegistry {
+
+    public static final Duration JOIN_WINDOW = Duration.ofMinutes(10);
+
+    private final ConcurrentMap<String, Lobby> lobbiesByName = new ConcurrentHashMap<>();
+
+    public static boolean isJoinable(LocalDateTime startTime) {
+        return LocalDateTime.now().isBefore(startTime.plus(JOIN_WINDOW));
+    }
+
+    public Optional<Lobby> find(String name) {
+        Lobby lobby = lobbiesByName.get(name);
+        if (lobby != null && !lobby.isOpen()) {
+            lobbiesByName.remove(name, lobby);
+            return Optional.empty();
+        }
+        return Optional.ofNullable(lobby);
+    }
+
+    /**
+     * Registers the lobby unless an open one is already registered under the same name, and
+     * returns the registered one.
+     */
+    public Lobby register(Lobby lobby) {
+        return lobbiesByName.compute(lobby.getName(),
+                (name, registered) -> registered != null && registered.isOpen() ? registered : lobby);
+    }
+
+    /**
+     * Registers the lobby of a newly created game once the current transaction commits,
+     * replacing whatever was registered under its name: the committed game owns the name.
+     */
+    public void registerOnCommit(Lobby lobby) {
+        afterCommit(() -> lobbiesByName.put(lobby.getName(), lobby));
+    }
+
+    public void remove(Lobby lobby) {
+        lobbiesByName.remove(lobby.getName(), lobby);
+    }
+
+    /**
+     * Publishes the draft once the current transaction commits. When the lobby moved on in the
+     * meantime, it is dropped so the next access reloads it from the database. Nothing is
+     * published when the transaction rolls back.
+     */
+    public void publishOnCommit(Draft draft) {
+        afterCommit(() -> {
+            if (!draft.publish()) {
+                remove(draft.lobby);
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${features.games.lobby.sweepIntervalMillis:60000}")
+    public void removeClosed() {
+        lobbiesByName.values().removeIf(lobby -> !lobby.isOpen());
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    public enum JoinResult { JOINED, ALREADY_IN_GAME, CLOSED }
+
+    public enum LeaveResult { LEFT, LAST_TEAM_LEFT, NOT_IN_GAME }
+
+    /**
+     * Outcome of a leave, with the team the player left when it is known.
+     */
+    public record Departure(LeaveResult result, Long teamId) {
+    }
+
+    public static final class Lobby {
+
+        private final String name;
+        private final Long gameId;
+        private final LocalDateTime startTime;
+        private final AtomicReference<State> state;
+
+        private Lobby(String name, Long gameId, LocalDateTime startTime, State state) {
+            this.name = name;
+            this.gameId = gameId;
+            this.startTime = startTime;
+            this.state = new AtomicReference<>(state);
+        }
+
+        public static Lobby of(String name, Long gameId, LocalDateTime startTime, Long version,
+                               Collection<GameTeamMember> gameTeamMembers) {
+            Set<Long> playerIds = new HashSet<>();
+            Map<Long, Long> remainingTeamIds = new HashMap<>();
+            gameTeamMembers.forEach(member -> {
+                playerIds.add(member.getPlayerId());
+                if (member.getIsRemaining()) {
+                    remainingTeamIds.put(member.getPlayerId(), member.getTeamId());
+                }
+            });
+            return new Lobby(name, gameId, startTime, new State(version,
+                    new Members(Set.copyOf(playerIds), Map.copyOf(remainingTeamIds), false)));
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Long getGameId() {
+            return gameId;
+        }
+
+        /**
+         * Whether the lobby reflects the given version of the game.
+         */
+        public boolean isAt(Long gameVersion) {
+            return gameVersion != null && gameVersion.equals(state.get().version());
+        }
+
+        public boolean isOpen() {
+            return !state.get().members().ended() && isJoinable(startTime);
+        }
+
+        /**
+         * Takes a private copy of the members to decide on, when the lobby reflects the given
+         * version of the game.
+         */
+        public Optional<Draft> draftAt(Long gameVersion) {
+            State current = state.get();
+            if (gameVersion == null || !gameVersion.equals(current.version())) {
+                return Optional.empty();
+            }
+            return Optional.of(new Draft(this, current));
+        }
+    }
+
+    /**
+     * The members of a lobby as one transaction sees and changes them. Confined to that
+     * transaction, so it needs no synchronization; other transactions only see the changes once
+     * {@link #publishOnCommit} has published them.
+     */
+    public static final class Draft {
+
+        private final Lobby lobby;
+        private final State base;
+        private Members members;
+
+        private Draft(Lobby lobby, State base) {
+            this.lobby = lobby;
+            this.base = base;
+            this.members = base.members();
+        }
+
+        public Lobby getLobby() {
+            return lobby;
+        }
+
+        /**
+         * Reserves the player's place. The player counts as remaining only once the team is
+         * assigned with {@link #assignTeam}.
+         */
+        public JoinResult join(Long playerId) {
+            if (members.ended() || !isJoinable(lobby.startTime)) {
+                return JoinResult.CLOSED;
+            }
+            if (members.playerIds().contains(playerId)) {
+                return JoinResult.ALREADY_IN_GAME;
+            }
+            Set<Long> playerIds = new HashSet<>(members.playerIds());
+            playerIds.add(playerId);
+            members = new Members(Set.copyOf(playerIds), members.remainingTeamIds(), false);
+            return JoinResult.JOINED;
+        }
+
+        public void assignTeam(Long playerId, Long teamId) {
+            Map<Long, Long> remainingTeamIds = new HashMap<>(members.remainingTeamIds());
+            remainingTeamIds.put(playerId, teamId);
+            members = new Members(members.playerIds(), Map.copyOf(remainingTeamIds), members.ended());
+        }
+
+        /**
+         * Removes the player from the remaining ones. When the player's team is the last one
+         * still having players, the game ends instead and the lobby closes.
+         */
+        public Departure leave(Long playerId) {
+            Long teamId = members.remainingTeamIds().get(playerId);
+            if (members.ended() || teamId == null) {
+                return new Departure(LeaveResult.NOT_IN_GAME, null);
+            }
+            if (Set.copyOf(members.remainingTeamIds().values()).size() == 1) {
+                members = new Members(members.playerIds(), members.remainingTeamIds(), true);
+                return new Departure(LeaveResult.LAST_TEAM_LEFT, teamId);
+            }
+            Map<Long, Long> remainingTeamIds = new HashMap<>(members.remainingTeamIds());
+            remainingTeamIds.remove(playerId);
+            members = new Members(members.playerIds(), Map.copyOf(remainingTeamIds), false);
+            return new Departure(LeaveResult.LEFT, teamId);
+        }
+
+        /**
+         * Moves the lobby to the version the committed transaction left the game at, which the
+         * forced increment made one above the version read. Fails when another draft of the same
+         * state was published first.
+         */
+        boolean publish() {
+            return lobby.state.compareAndSet(base, new State(base.version() + 1, members));
+        }
+    }
+
+    private record State(Long version, Members members) {
+    }
+
+    private record Members(Set<Long> playerIds, Map<Long, Long> remainingTeamIds, boolean ended) {
+    }
+}
@@ -0,0 +1,97 @@
+package dev.community.onlineplayerserverapi.services;
+
+import dev.community.onlineplayerserverapi.repositories.PlayerNames;
+import dev.community.onlineplayerserverapi.repositories.PlayerRepository;
+import dev.community.onlineplayerserverapi.utils.BloomFilter;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Bloom filters of the registered nicknames and emails, so checking a name nobody uses does not
+ * reach the database. A "might be taken" answer still has to be confirmed by the repository.
+ * Values are lower-cased, matching the case-insensitive comparison of the database.
+ * Players registered by other instances are picked up on the next refresh, which walks the
+ * registration time rather than the id: pooled ids are not committed in order across instances.
+ * Each refresh starts an overlap window before the newest player seen, so registrations that
+ * committed late, or on an instance with a clock behind, are not missed.
+ */
+@Component
+@RequiredArgsConstructor
+public class PlayerNameFilter {
+
+    private final PlayerRepository playerRepository;
+
+    @Value("${features.players.nameFilter.expectedPlayers:1000000}")
+    private Long expectedPlayers;
+
+    @Value("${features.players.nameFilter.falsePositiveProbability:0.01}")
+    private Double falsePositiveProbability;
+
+    @Value("${features.players.nameFilter.batchSize:5000}")
+    private Integer batchSize;
+
+    @Value("${features.players.nameFilter.overlapSeconds:300}")
+    private Long overlapSeconds;
+
+    private BloomFilter nickNames;
+    private BloomFilter emails;
+    private volatile boolean loaded;
+    private LocalDateTime lastCreatedAt = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    @PostConstruct
+    void init() {
+        nickNames = new BloomFilter(expectedPlayers, falsePositiveProbability);
+        emails = new BloomFilter(expectedPlayers, falsePositiveProbability);
+    }
+
+    /**
+     * Answers true until the registered players have been loaded once.
+     */
+    public boolean mightContainNickName(String nickName) {
+        return !loaded || nickNames.mightContain(normalize(nickName));
+    }
+
+    public boolean mightContainEmail(String email) {
+        return !loaded || emails.mightContain(normalize(email));
+    }
+
+    public void add(String nickName, String email) {
+        nickNames.add(normalize(nickName));
+        emails.add(normalize(email));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${features.players.nameFilter.refreshIntervalMillis:10000}")
+    public synchronized void refresh() {
+        LocalDateTime createdAfter = loaded ? lastCreatedAt.minusSeconds(overlapSeconds) : lastCreatedAt;
+        Long lastId = 0L;
+        List<PlayerNames> players;
+        do {
+            players = playerRepository.findNamesCreatedAfter(createdAfter, lastId, Limit.of(batchSize));
+            players.forEach(player -> add(player.getNickName(), player.getEmail()));
+            if (!players.isEmpty()) {
+                PlayerNames lastPlayer = players.get(players.size() - 1);
+                createdAfter = lastPlayer.getCreatedAt();
+                lastId = lastPlayer.getId();
+            }
+        } while (players.size() == batchSize);
+        if (createdAfter.isAfter(lastCreatedAt)) {
+            lastCreatedAt = createdAfter;
+        }
+        loaded = true;
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.toLowerCase(Locale.ROOT);
+    }
+}
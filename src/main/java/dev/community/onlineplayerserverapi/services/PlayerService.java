@@ -2,6 +2,8 @@ package dev.community.onlineplayerserverapi.services;
 
 import dev.community.onlineplayerserverapi.models.*;
 
+import java.util.function.Consumer;
+
 public interface PlayerService {
 
     LoginResponseDto login(PlayerDto playerDto);
@@ -21,4 +23,6 @@ public interface PlayerService {
     LoginResponseDto leaveGame(GameRequestDto gameRequestDto);
 
     GameDetailsResponseDto getGameDetails(PlayerDetailsRequestDto playerDetailsRequestDto);
+
+    void streamGameDetails(PlayerDetailsRequestDto playerDetailsRequestDto, Consumer<GameDetailsDto> gameDetailsConsumer);
 }
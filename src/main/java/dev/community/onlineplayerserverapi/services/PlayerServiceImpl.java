@@ -1,29 +1,55 @@
 package dev.community.onlineplayerserverapi.services;
 
 import dev.community.onlineplayerserverapi.entities.Player;
+import dev.community.onlineplayerserverapi.entities.PlayerGameStats;
 import dev.community.onlineplayerserverapi.entities.PlayerSession;
 import dev.community.onlineplayerserverapi.mappers.PlayerMapper;
 import dev.community.onlineplayerserverapi.models.*;
+import dev.community.onlineplayerserverapi.repositories.PlayerNickName;
 import dev.community.onlineplayerserverapi.repositories.PlayerRepository;
+import dev.community.onlineplayerserverapi.repositories.PlayerSpecifications;
+import dev.community.onlineplayerserverapi.utils.Batches;
+import dev.community.onlineplayerserverapi.utils.IncludedFields;
+import dev.community.onlineplayerserverapi.utils.KeysetCursor;
 import jakarta.transaction.Transactional;
-import lombok.AllArgsConstructor;
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.util.CollectionUtils;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Consumer;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 @Service
-@AllArgsConstructor
+@Timed(value = "service.method", histogram = true)
+@RequiredArgsConstructor
 public class PlayerServiceImpl implements PlayerService {
 
     private final PlayerRepository playerRepository;
     private final PlayerMapper playerMapper;
     private final SessionService sessionService;
     private final GameService gameService;
+    private final PlayerNameFilter playerNameFilter;
+
+    @Value("${features.players.details.maxPageSize:1000}")
+    private Integer maxPageSize;
 
     private static final Pattern EMAIL_PATTERN = Pattern.compile(
             "^[a-zA-Z0-9._%+-]+@[a-zA-Z0-9.-]+\\.[a-zA-Z]{2,6}$"
@@ -32,7 +58,12 @@ public class PlayerServiceImpl implements PlayerService {
     private static final int MAX_SIZE_NICKNAME = 20;
     private static final int MAX_SIZE_EMAIL = 20;
 
+    private static final Sort ID_ASCENDING = Sort.by("id");
+
+    private static final Set<String> GAME_STATS_FIELDS = Set.of("gamesPlayed", "wins", "losses");
+
     @Override
+    @Transactional
     public LoginResponseDto login(PlayerDto playerDto) {
 
         Optional<Player> foundPlayer = playerRepository.findByNickName(playerDto.getNickName());
@@ -65,8 +96,12 @@ public class PlayerServiceImpl implements PlayerService {
                 .build();
     }
 
+    /**
+     * The checks before the insert only make a clash unlikely; the unique indexes decide. The
+     * insert is flushed in its own transaction, so a concurrent registration of the same nickname
+     * or email is rejected the same way as one that was already committed.
+     */
     @Override
-    @Transactional(Transactional.TxType.REQUIRES_NEW)
     public RegisterResponseDto register(PlayerDto playerDto) {
         Optional<RegisterResponseDto> validationResponse = validateRegistration(playerDto);
         if (validationResponse.isPresent()) {
@@ -74,7 +109,16 @@ public class PlayerServiceImpl implements PlayerService {
         }
 
         Player createdPlayer = playerMapper.toEntity(playerDto);
-        playerRepository.save(createdPlayer);
+        try {
+            playerRepository.saveAndFlush(createdPlayer);
+        } catch (DataIntegrityViolationException e) {
+            return RegisterResponseDto.builder()
+                    .loginStatus(LoginStatus.REJECTED)
+                    .message(playerRepository.existsByNickName(playerDto.getNickName()) ?
+                            "Nickname already exists!" : "Email already used!")
+                    .build();
+        }
+        playerNameFilter.add(createdPlayer.getNickName(), createdPlayer.getEmail());
 
         return RegisterResponseDto.builder()
                 .loginStatus(LoginStatus.SUCCESS)
@@ -153,22 +197,43 @@ public class PlayerServiceImpl implements PlayerService {
     @Override
     public GameDetailsResponseDto getGameDetails(PlayerDetailsRequestDto playerDetailsRequestDto) {
         GameDetailsResponseDto gameDetails = gameService.getGameDetails(playerDetailsRequestDto);
+        resolveTeamPlayerNickNames(gameDetails.getGameDetails(), playerDetailsRequestDto);
+        return gameDetails;
+    }
+
+    @Override
+    public void streamGameDetails(PlayerDetailsRequestDto playerDetailsRequestDto,
+                                  Consumer<GameDetailsDto> gameDetailsConsumer) {
+        gameService.streamGameDetails(playerDetailsRequestDto, gameDetailsChunk -> {
+            resolveTeamPlayerNickNames(gameDetailsChunk, playerDetailsRequestDto);
+            gameDetailsChunk.forEach(gameDetailsConsumer);
+        });
+    }
 
-        Set<String> includedFields = playerDetailsRequestDto.getIncludes() != null ?
-                playerDetailsRequestDto.getIncludes() : Set.of();
-        if (includedFields.contains("teamsDetails")) {
-            gameDetails.getGameDetails().forEach(game -> {
-                if (game.getTeamsDetails() != null) {
-                    game.getTeamsDetails().forEach(team -> {
-                        List<Long> playerIds = team.getPlayers().stream().map(Long::valueOf).collect(Collectors.toList());
-                        List<Player> players = playerRepository.findAllById(playerIds);
-                        team.setPlayers(players.stream().map(Player::getNickName).collect(Collectors.toList()));
-                    });
-                }
-            });
+    private void resolveTeamPlayerNickNames(List<GameDetailsDto> gameDetailsDtos,
+                                            PlayerDetailsRequestDto playerDetailsRequestDto) {
+        Set<String> includedFields = IncludedFields.of(playerDetailsRequestDto);
+        if (!includedFields.contains("teamsDetails")) {
+            return;
+        }
+        List<GameTeamDetailsDto> teams = gameDetailsDtos.stream()
+                .filter(game -> game.getTeamsDetails() != null)
+                .flatMap(game -> game.getTeamsDetails().stream())
+                .toList();
+        Set<Long> playerIds = teams.stream()
+                .flatMap(team -> team.getPlayerIds().stream())
+                .collect(Collectors.toSet());
+
+        Map<Long, String> nickNames = new HashMap<>();
+        for (List<Long> batch : Batches.partition(playerIds, Batches.IN_LIST_BATCH_SIZE)) {
+            playerRepository.findNickNamesByIdIn(batch)
+                    .forEach(player -> nickNames.put(player.getId(), player.getNickName()));
         }
 
-        return gameDetails;
+        teams.forEach(team -> team.setPlayers(team.getPlayerIds().stream()
+                .map(nickNames::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList())));
     }
 
     private Optional<RegisterResponseDto> validateRegistration(PlayerDto playerDto) {
@@ -227,45 +292,138 @@ public class PlayerServiceImpl implements PlayerService {
         if (playerDetailsRequestDto.getPlayerToken() != null) {
             sessionService.updateActivity(playerDetailsRequestDto.getPlayerToken());
         }
-        boolean showAll = playerDetailsRequestDto.getPage() == null || playerDetailsRequestDto.getPageSize() == null;
+        int pageSize = resolvePageSize(playerDetailsRequestDto.getPageSize());
 
-        List<Player> selectedPlayers = showAll ? playerRepository.findAll() : List.of();
-        Set<String> includedFields = playerDetailsRequestDto.getIncludes() != null ?
-                playerDetailsRequestDto.getIncludes() : Set.of();
+        PlayersPage playersPage = selectPlayersPage(playerDetailsRequestDto, pageSize);
+        List<PlayerNickName> selectedPlayers = playersPage.players();
+        Set<String> includedFields = IncludedFields.of(playerDetailsRequestDto);
+
+        Map<Long, Long> totalPlayTimes = includedFields.contains("totalPlayTime") ?
+                sessionService.getTotalPlayTimes(selectedPlayers.stream().map(PlayerNickName::getId).toList()) : Map.of();
+
+        Map<Long, PlayerGameStats> gameStats = Collections.disjoint(includedFields, GAME_STATS_FIELDS) ? Map.of() :
+                gameService.getGameStats(selectedPlayers.stream().map(PlayerNickName::getId).toList());
 
         PlayerDetailsResponseDto playerDetailsResponseDto = new PlayerDetailsResponseDto();
         playerDetailsResponseDto.setPlayerDetails(selectedPlayers.stream()
-                .filter(player -> playerDetailsPartialFilter(player, playerDetailsRequestDto.getFilter()))
-                .map(player -> playerDetailsPartialMap(player, includedFields))
+                .map(player -> playerDetailsPartialMap(player, includedFields, totalPlayTimes, gameStats))
                 .toList());
-        playerDetailsResponseDto.setTotalPlayers(showAll ? playerDetailsResponseDto.getPlayerDetails().size() :
-                (int) playerRepository.count());
+        if (playersPage.total() != null) {
+            playerDetailsResponseDto.setTotalPlayers(playersPage.total().intValue());
+        }
+        if (selectedPlayers.size() == pageSize) {
+            playerDetailsResponseDto.setNextCursor(KeysetCursor.encode(selectedPlayers.get(pageSize - 1).getId()));
+        }
         return playerDetailsResponseDto;
     }
 
-    private PlayerDetailsDto playerDetailsPartialMap(Player player, Set<String> includedFields) {
+    /**
+     * Filters are compiled into the query. A cursor seeks past the last returned id, so every
+     * page costs the same as the first one. A page number without cursor is still honoured with
+     * an offset, and a request without either starts from the beginning; both are capped to the
+     * maximum page size. Only these two are counted; a client paging by cursor already has the total.
+     */
+    private PlayersPage selectPlayersPage(PlayerDetailsRequestDto playerDetailsRequestDto, int pageSize) {
+        PlayerFilterDto playerFilterDto = playerDetailsRequestDto.getFilter();
+        Specification<Player> specification = PlayerSpecifications.nickNameMatching(playerFilterDto);
+        if (playerFilterDto != null && !CollectionUtils.isEmpty(playerFilterDto.getNickNames())) {
+            return selectPlayersByNickNames(playerDetailsRequestDto, specification, pageSize);
+        }
+
+        if (playerDetailsRequestDto.getCursor() != null) {
+            Long lastId = KeysetCursor.decode(playerDetailsRequestDto.getCursor());
+            return new PlayersPage(findPlayers(specification.and(PlayerSpecifications.idGreaterThan(lastId)), pageSize),
+                    null);
+        }
+        if (playerDetailsRequestDto.getPage() != null && playerDetailsRequestDto.getPage() > 0) {
+            Page<PlayerNickName> page = playerRepository.findBy(specification, query -> query
+                    .as(PlayerNickName.class)
+                    .sortBy(ID_ASCENDING)
+                    .page(PageRequest.of(playerDetailsRequestDto.getPage(), pageSize)));
+            return new PlayersPage(page.getContent(), page.getTotalElements());
+        }
+        return new PlayersPage(findPlayers(specification, pageSize), playerRepository.count(specification));
+    }
+
+    /**
+     * Nicknames are looked up with batched IN-lists on the indexed column. Each batch returns at
+     * most one row per nickname, so merging the batches in memory stays bounded by the request.
+     */
+    private PlayersPage selectPlayersByNickNames(PlayerDetailsRequestDto playerDetailsRequestDto,
+                                                 Specification<Player> specification, int pageSize) {
+        int offset = 0;
+        if (playerDetailsRequestDto.getCursor() != null) {
+            specification = specification.and(
+                    PlayerSpecifications.idGreaterThan(KeysetCursor.decode(playerDetailsRequestDto.getCursor())));
+        } else if (playerDetailsRequestDto.getPage() != null && playerDetailsRequestDto.getPage() > 0) {
+            offset = playerDetailsRequestDto.getPage() * pageSize;
+        }
+
+        boolean counted = playerDetailsRequestDto.getCursor() == null;
+        long total = 0;
+        List<PlayerNickName> players = new ArrayList<>();
+        Set<String> nickNames = new LinkedHashSet<>(playerDetailsRequestDto.getFilter().getNickNames());
+        for (List<String> batch : Batches.partition(nickNames, Batches.IN_LIST_BATCH_SIZE)) {
+            Specification<Player> batchSpecification = specification.and(PlayerSpecifications.nickNameIn(batch));
+            players.addAll(findPlayers(batchSpecification, offset + pageSize));
+            if (counted) {
+                total += playerRepository.count(batchSpecification);
+            }
+        }
+        return new PlayersPage(players.stream()
+                .sorted(Comparator.comparing(PlayerNickName::getId))
+                .skip(offset)
+                .limit(pageSize)
+                .toList(), counted ? total : null);
+    }
+
+    /**
+     * Only the id and nickname columns are selected; the remaining player columns are never read
+     * for details.
+     */
+    private List<PlayerNickName> findPlayers(Specification<Player> specification, int limit) {
+        return playerRepository.findBy(specification, query -> query
+                .as(PlayerNickName.class)
+                .sortBy(ID_ASCENDING)
+                .limit(limit)
+                .all());
+    }
+
+    private int resolvePageSize(Integer requestedPageSize) {
+        if (requestedPageSize == null || requestedPageSize <= 0) {
+            return maxPageSize;
+        }
+        return Math.min(requestedPageSize, maxPageSize);
+    }
+
+    private PlayerDetailsDto playerDetailsPartialMap(PlayerNickName player, Set<String> includedFields,
+                                                     Map<Long, Long> totalPlayTimes,
+                                                     Map<Long, PlayerGameStats> gameStats) {
         PlayerDetailsDto playerDetailsDto = new PlayerDetailsDto();
         if (includedFields.contains("nickName")) {
             playerDetailsDto.setNickName(player.getNickName());
         }
         if (includedFields.contains("totalPlayTime")) {
-            playerDetailsDto.setTotalPlayTime(sessionService.getTotalPlayTime(player.getId()));
+            playerDetailsDto.setTotalPlayTime(totalPlayTimes.getOrDefault(player.getId(), 0L));
         }
-        return playerDetailsDto;
-    }
-
-    private boolean playerDetailsPartialFilter(Player player, PlayerFilterDto playerFilterDto) {
-        if (playerFilterDto != null && !CollectionUtils.isEmpty(playerFilterDto.getNickNames())) {
-            return playerFilterDto.getNickNames().contains(player.getNickName());
+        PlayerGameStats playerGameStats = gameStats.get(player.getId());
+        if (includedFields.contains("gamesPlayed")) {
+            playerDetailsDto.setGamesPlayed(playerGameStats != null ? playerGameStats.getGamesPlayed() : 0);
+        }
+        if (includedFields.contains("wins")) {
+            playerDetailsDto.setWins(playerGameStats != null ? playerGameStats.getWins() : 0);
+        }
+        if (includedFields.contains("losses")) {
+            playerDetailsDto.setLosses(playerGameStats != null ? playerGameStats.getLosses() : 0);
         }
-        return true;
+        return playerDetailsDto;
     }
 
     private boolean doesPlayerWithNicknameExist(String nickName) {
-        return playerRepository.findByNickName(nickName).isPresent();
+        return playerNameFilter.mightContainNickName(nickName) && playerRepository.existsByNickName(nickName);
     }
     private boolean doesPlayerWithEmailExist(String email) {
-        return playerRepository.findByEmail(email).isPresent();
+        return playerNameFilter.mightContainEmail(email) && playerRepository.existsByEmail(email);
     }
 
     private boolean isEmailValid(String email) {
@@ -275,4 +433,9 @@ public class PlayerServiceImpl implements PlayerService {
         return EMAIL_PATTERN.matcher(email).matches();
     }
 
+    /**
+     * The total is null for a page requested by cursor, which is not counted again.
+     */
+    private record PlayersPage(List<PlayerNickName> players, Long total) {
+    }
 }
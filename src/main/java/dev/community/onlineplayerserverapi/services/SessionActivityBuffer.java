@@ -0,0 +1,98 @@
+package dev.community.onlineplayerserverapi.services;
+
+import dev.community.onlineplayerserverapi.utils.Batches;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Write-behind buffer for session last activity times. Repeated activity of the same session is
+ * coalesced in memory and written in batches once it is older than the maximum staleness, on
+ * shutdown, or when the session is closed.
+ */
+@Component
+@RequiredArgsConstructor
+public class SessionActivityBuffer {
+
+    /**
+     * Only moves the activity of a session still opened forward, so a session closed concurrently
+     * stays closed. Written with JDBC because Hibernate never batches bulk update queries.
+     */
+    private static final String UPDATE_LAST_ACTIVITY_TIME = "update T_PLAYER_SESSION set last_activity_time = ? " +
+            "where id = ? and is_closed = false and last_activity_time < ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${features.session.activity.maxStalenessMillis:30000}")
+    private Long maxStalenessMillis;
+
+    private final ConcurrentMap<Long, PendingActivity> pendingActivities = new ConcurrentHashMap<>();
+
+    public void record(Long sessionId, LocalDateTime activityTime) {
+        pendingActivities.merge(sessionId, new PendingActivity(activityTime, System.nanoTime()),
+                (pending, recorded) -> pending.lastActivityTime().isBefore(recorded.lastActivityTime()) ?
+                        new PendingActivity(recorded.lastActivityTime(), pending.firstRecordedNanos()) : pending);
+    }
+
+    public Optional<LocalDateTime> peek(Long sessionId) {
+        return Optional.ofNullable(pendingActivities.get(sessionId)).map(PendingActivity::lastActivityTime);
+    }
+
+    public Optional<LocalDateTime> take(Long sessionId) {
+        return Optional.ofNullable(pendingActivities.remove(sessionId)).map(PendingActivity::lastActivityTime);
+    }
+
+    @Scheduled(fixedDelayString = "${features.session.activity.flushIntervalMillis:5000}")
+    public void flushStale() {
+        long staleBefore = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(maxStalenessMillis);
+        flush(pending -> pending.firstRecordedNanos() - staleBefore <= 0);
+    }
+
+    @PreDestroy
+    public void flushAll() {
+        flush(pending -> true);
+    }
+
+    private void flush(Predicate<PendingActivity> isDue) {
+        Map<Long, LocalDateTime> dueActivities = new HashMap<>();
+        pendingActivities.forEach((sessionId, pending) -> {
+            if (isDue.test(pending) && pendingActivities.remove(sessionId, pending)) {
+                dueActivities.put(sessionId, pending.lastActivityTime());
+            }
+        });
+
+        List<List<Long>> batches = Batches.partition(dueActivities.keySet(), Batches.IN_LIST_BATCH_SIZE);
+        for (int i = 0; i < batches.size(); i++) {
+            List<Long> batch = batches.get(i);
+            try {
+                List<Object[]> batchArgs = batch.stream()
+                        .map(sessionId -> new Object[]{dueActivities.get(sessionId), sessionId, dueActivities.get(sessionId)})
+                        .toList();
+                transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(UPDATE_LAST_ACTIVITY_TIME, batchArgs));
+            } catch (RuntimeException e) {
+                // keep the activities not written yet for the next flush instead of losing them
+                batches.subList(i, batches.size()).forEach(unwritten ->
+                        unwritten.forEach(sessionId -> record(sessionId, dueActivities.get(sessionId))));
+                throw e;
+            }
+        }
+    }
+
+    private record PendingActivity(LocalDateTime lastActivityTime, long firstRecordedNanos) {
+    }
+}
@@ -2,6 +2,10 @@ package dev.community.onlineplayerserverapi.services;
 
 import dev.community.onlineplayerserverapi.entities.PlayerSession;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Map;
+
 public interface SessionService {
     String createPlayerSession(Long playerId);
     void closePlayerSession(String token);
@@ -9,4 +13,8 @@ public interface SessionService {
     PlayerSession getPlayerSession(String sessionToken);
     boolean isSessionValid(String sessionToken);
     long getTotalPlayTime(Long playerId);
+    Map<Long, Long> getTotalPlayTimes(Collection<Long> playerIds);
+    void recomputePlayTime(Collection<Long> playerIds);
+    int closeExpiredSessions(Collection<Long> sessionIds, LocalDateTime expiredBefore);
+    int archiveClosedSessions(Collection<Long> sessionIds);
 }
@@ -1,33 +1,52 @@
 package dev.community.onlineplayerserverapi.services;
 
+import dev.community.onlineplayerserverapi.entities.PlayerPlayTime;
 import dev.community.onlineplayerserverapi.entities.PlayerSession;
+import dev.community.onlineplayerserverapi.repositories.PlayTimeTotal;
+import dev.community.onlineplayerserverapi.repositories.PlayerPlayTimeRepository;
+import dev.community.onlineplayerserverapi.repositories.SessionArchiveRepository;
 import dev.community.onlineplayerserverapi.repositories.SessionRepository;
+import dev.community.onlineplayerserverapi.utils.Batches;
 import jakarta.transaction.Transactional;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.PropertySource;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
-import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 @Service
+@Timed(value = "service.method", histogram = true)
 @RequiredArgsConstructor
 @PropertySource("classpath:application.properties")
 public class SessionServiceImpl implements SessionService {
 
     private final SessionRepository sessionRepository;
+    private final PlayerPlayTimeRepository playerPlayTimeRepository;
+    private final SessionArchiveRepository sessionArchiveRepository;
+    private final SessionTokenCache sessionTokenCache;
+    private final SessionActivityBuffer sessionActivityBuffer;
 
     @Value("${features.session.expirationTimeSeconds:10800}")
     private Integer sessionExpirationTime;
 
 
+    /**
+     * Joins the caller's transaction, so a login takes one transaction: the opened session of the
+     * player is closed and added to the rollup by bulk updates, without being loaded.
+     */
     @Override
-    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    @Transactional
     public String createPlayerSession(Long playerId) {
-        closePlayerOpenedSession(playerId);
+        closePlayerOpenedSessions(playerId);
 
         PlayerSession playerSession = new PlayerSession();
         playerSession.setPlayerId(playerId);
@@ -37,6 +56,7 @@ public class SessionServiceImpl implements SessionService {
         playerSession.setIsClosed(false);
 
         PlayerSession createdPlayerSession = sessionRepository.save(playerSession);
+        sessionTokenCache.put(createdPlayerSession);
 
         return createdPlayerSession.getSessionToken();
     }
@@ -47,55 +67,209 @@ public class SessionServiceImpl implements SessionService {
         closePlayerSessionWithToken(token);
     }
 
+    /**
+     * Only records the activity in memory; {@link SessionActivityBuffer} writes it in batches.
+     */
     @Override
-    @Transactional(Transactional.TxType.REQUIRES_NEW)
     public void updateActivity(String sessionToken) {
-        PlayerSession playerSession = sessionRepository.findOpenedSessionByToken(sessionToken);
+        PlayerSession playerSession = findOpenedSessionByToken(sessionToken);
         if (playerSession != null && !playerSession.getIsClosed()) {
-            playerSession.setLastActivityTime(LocalDateTime.now());
-            sessionRepository.save(playerSession);
+            LocalDateTime activityTime = LocalDateTime.now();
+            playerSession.setLastActivityTime(activityTime);
+            sessionActivityBuffer.record(playerSession.getId(), activityTime);
         }
     }
 
     @Override
     public PlayerSession getPlayerSession(String sessionToken) {
-        return sessionRepository.findOpenedSessionByToken(sessionToken);
+        return findOpenedSessionByToken(sessionToken);
     }
 
     @Override
     public boolean isSessionValid(String sessionToken) {
-        PlayerSession playerSession = sessionRepository.findOpenedSessionByToken(sessionToken);
+        PlayerSession playerSession = findOpenedSessionByToken(sessionToken);
         return playerSession != null && !playerSession.getIsClosed();
     }
 
     @Override
     public long getTotalPlayTime(Long playerId) {
-        List<PlayerSession> playerSessions = sessionRepository.findPlayerSessionsByPlayerId(playerId);
-        return playerSessions.stream()
-                .map(this::calculateSessionDurationSeconds)
-                .reduce(0L, Long::sum);
+        return getTotalPlayTimes(List.of(playerId)).getOrDefault(playerId, 0L);
+    }
+
+    /**
+     * Closed sessions are read from the per-player rollup, so the cost does not depend on how many
+     * sessions a player has had; only the currently opened session is added on top.
+     */
+    @Override
+    public Map<Long, Long> getTotalPlayTimes(Collection<Long> playerIds) {
+        Map<Long, Long> totalPlayTimes = new HashMap<>();
+        for (List<Long> batch : Batches.partition(playerIds, Batches.IN_LIST_BATCH_SIZE)) {
+            for (PlayerPlayTime playerPlayTime : playerPlayTimeRepository.findAllById(batch)) {
+                totalPlayTimes.merge(playerPlayTime.getPlayerId(), playerPlayTime.getTotalSeconds(), Long::sum);
+            }
+            for (PlayerSession openedSession : sessionRepository.findOpenedSessionsByPlayerIds(batch)) {
+                LocalDateTime lastActivityTime = sessionActivityBuffer.peek(openedSession.getId())
+                        .filter(openedSession.getLastActivityTime()::isBefore)
+                        .orElse(openedSession.getLastActivityTime());
+                totalPlayTimes.merge(openedSession.getPlayerId(),
+                        Duration.between(openedSession.getLoginTime(), lastActivityTime).getSeconds(), Long::sum);
+            }
+        }
+        return totalPlayTimes;
     }
 
-    private void closePlayerOpenedSession(Long playerId) {
-        closeSession(sessionRepository.findOpenedSessionByPlayerId(playerId));
+    /**
+     * Rebuilds the rollup rows of the given players from their closed sessions, archived ones
+     * included. Used to backfill the rollup and to repair it; sessions closing while it runs may
+     * need another pass.
+     */
+    @Override
+    @Transactional
+    public void recomputePlayTime(Collection<Long> playerIds) {
+        Map<Long, PlayerPlayTime> rollups = new HashMap<>();
+        playerPlayTimeRepository.findAllById(playerIds)
+                .forEach(playerPlayTime -> rollups.put(playerPlayTime.getPlayerId(), playerPlayTime));
+
+        List<PlayTimeTotal> playTimeTotals = new ArrayList<>(sessionRepository.sumClosedPlayTimeByPlayerIds(playerIds));
+        playTimeTotals.addAll(sessionArchiveRepository.sumPlayTimeByPlayerIds(playerIds));
+
+        Map<Long, PlayerPlayTime> recomputedRollups = new HashMap<>();
+        for (PlayTimeTotal playTimeTotal : playTimeTotals) {
+            PlayerPlayTime playerPlayTime = recomputedRollups.computeIfAbsent(playTimeTotal.getPlayerId(),
+                    playerId -> resetRollup(rollups.remove(playerId), playerId));
+            playerPlayTime.setTotalSeconds(playerPlayTime.getTotalSeconds() +
+                    (playTimeTotal.getTotalSeconds() != null ? playTimeTotal.getTotalSeconds() : 0L));
+            playerPlayTime.setSessionCount(playerPlayTime.getSessionCount() + playTimeTotal.getSessionCount().intValue());
+            if (playerPlayTime.getLastLoginTime() == null ||
+                    playerPlayTime.getLastLoginTime().isBefore(playTimeTotal.getLastLoginTime())) {
+                playerPlayTime.setLastLoginTime(playTimeTotal.getLastLoginTime());
+            }
+        }
+        playerPlayTimeRepository.saveAll(recomputedRollups.values());
+        // players left in the map have no closed session anymore
+        playerPlayTimeRepository.deleteAll(rollups.values());
+    }
+
+    /**
+     * Moves the given closed sessions to the archive. Their play time stays in the rollup.
+     */
+    @Override
+    @Transactional
+    public int archiveClosedSessions(Collection<Long> sessionIds) {
+        sessionArchiveRepository.copyClosedSessions(sessionIds);
+        return sessionRepository.deleteClosedSessions(sessionIds);
+    }
+
+    /**
+     * Closes the given sessions that had no activity after the given time, including activity
+     * not written yet, and adds them to the rollups of their players. The sessions are locked
+     * first, so a concurrent logout or sweep of another instance cannot close them between the
+     * rollup update and the close, and each is added exactly once.
+     */
+    @Override
+    @Transactional
+    public int closeExpiredSessions(Collection<Long> sessionIds, LocalDateTime expiredBefore) {
+        List<Long> unbufferedSessionIds = sessionIds.stream()
+                .filter(sessionId -> sessionActivityBuffer.peek(sessionId).filter(expiredBefore::isBefore).isEmpty())
+                .toList();
+        if (unbufferedSessionIds.isEmpty()) {
+            return 0;
+        }
+        List<Long> expiredSessionIds = sessionRepository.lockExpiredSessionIds(unbufferedSessionIds, expiredBefore);
+        if (expiredSessionIds.isEmpty()) {
+            return 0;
+        }
+
+        List<Long> playerIdsWithoutRollup = sessionRepository.findPlayerIdsWithoutRollupOfExpiredSessions(
+                expiredSessionIds, expiredBefore);
+        playerPlayTimeRepository.addExpiredSessions(expiredSessionIds, expiredBefore);
+        int closedSessions = sessionRepository.closeExpiredSessions(expiredSessionIds, expiredBefore);
+        if (!playerIdsWithoutRollup.isEmpty()) {
+            recomputePlayTime(playerIdsWithoutRollup);
+        }
+        return closedSessions;
+    }
+
+    /**
+     * Sessions that expired but were not closed yet are treated as missing.
+     */
+    private PlayerSession findOpenedSessionByToken(String sessionToken) {
+        PlayerSession cachedSession = sessionTokenCache.get(sessionToken);
+        if (cachedSession != null) {
+            return cachedSession;
+        }
+        PlayerSession playerSession = sessionRepository.findOpenedSessionByToken(sessionToken);
+        if (playerSession == null || isExpired(playerSession)) {
+            return null;
+        }
+        sessionTokenCache.put(playerSession);
+        return playerSession;
+    }
+
+    private boolean isExpired(PlayerSession playerSession) {
+        LocalDateTime activeSince = LocalDateTime.now().minusSeconds(sessionExpirationTime);
+        return !playerSession.getLastActivityTime().isAfter(activeSince)
+                && sessionActivityBuffer.peek(playerSession.getId()).filter(activeSince::isBefore).isEmpty();
+    }
+
+    private void closePlayerOpenedSessions(Long playerId) {
+        LocalDateTime closeTime = LocalDateTime.now();
+        LocalDateTime activeSince = closeTime.minusSeconds(sessionExpirationTime);
+        // activity still buffered is found through the cached session
+        PlayerSession cachedSession = sessionTokenCache.invalidatePlayer(playerId);
+        boolean recentlyActive = cachedSession != null && sessionActivityBuffer.take(cachedSession.getId())
+                .filter(activeSince::isBefore)
+                .isPresent();
+
+        // locked first, so the expiry sweep cannot close them between the rollup update and the close
+        List<Long> openedSessionIds = sessionRepository.lockOpenedSessionIdsOfPlayer(playerId);
+        if (openedSessionIds.isEmpty()) {
+            return;
+        }
+        int updatedRollups = playerPlayTimeRepository.addOpenedSessions(openedSessionIds, activeSince, closeTime,
+                recentlyActive);
+        int closedSessions = sessionRepository.closeOpenedSessions(openedSessionIds, activeSince, closeTime,
+                recentlyActive);
+        if (updatedRollups == 0 && closedSessions > 0) {
+            recomputePlayTime(List.of(playerId));
+        }
     }
 
     private void closePlayerSessionWithToken(String token) {
         closeSession(sessionRepository.findOpenedSessionByToken(token));
     }
 
+    /**
+     * The session is closed by a guarded update rather than saved, and only added to the rollup
+     * when this call closed it: an expiry sweep or another logout may have closed it since it was
+     * read.
+     */
     private void closeSession(PlayerSession playerSession) {
         if (playerSession != null && !playerSession.getIsClosed()) {
-            playerSession.setIsClosed(true);
-            if (playerSession.getLastActivityTime().plusSeconds(sessionExpirationTime).isAfter(LocalDateTime.now())) {
-                playerSession.setLastActivityTime(LocalDateTime.now());
+            sessionTokenCache.invalidate(playerSession.getSessionToken());
+            LocalDateTime lastActivityTime = sessionActivityBuffer.take(playerSession.getId())
+                    .filter(playerSession.getLastActivityTime()::isBefore)
+                    .orElse(playerSession.getLastActivityTime());
+            LocalDateTime closeTime = LocalDateTime.now();
+            if (lastActivityTime.plusSeconds(sessionExpirationTime).isAfter(closeTime)) {
+                lastActivityTime = closeTime;
+            }
+            if (sessionRepository.closeOpenedSession(playerSession.getId(), lastActivityTime) > 0) {
+                playerPlayTimeRepository.addClosedSession(playerSession.getPlayerId(),
+                        Duration.between(playerSession.getLoginTime(), lastActivityTime).getSeconds(),
+                        playerSession.getLoginTime());
             }
-            sessionRepository.save(playerSession);
         }
     }
 
-    private long calculateSessionDurationSeconds(PlayerSession playerSession) {
-        return playerSession.getLastActivityTime().toEpochSecond(ZoneOffset.UTC) -
-                playerSession.getLoginTime().toEpochSecond(ZoneOffset.UTC);
+    private PlayerPlayTime resetRollup(PlayerPlayTime playerPlayTime, Long playerId) {
+        if (playerPlayTime == null) {
+            playerPlayTime = new PlayerPlayTime();
+            playerPlayTime.setPlayerId(playerId);
+        }
+        playerPlayTime.setTotalSeconds(0L);
+        playerPlayTime.setSessionCount(0);
+        playerPlayTime.setLastLoginTime(null);
+        return playerPlayTime;
     }
 }
@@ -0,0 +1,112 @@
+package dev.community.onlineplayerserverapi.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import dev.community.onlineplayerserverapi.entities.PlayerSession;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Bounded token to opened session cache placed in front of the session repository. An entry
+ * never outlives the configured time to live nor the moment its session would expire. The latest
+ * cached token of each player is indexed, so a player's session can be dropped without loading it.
+ */
+@Component
+public class SessionTokenCache implements MeterBinder {
+
+    @Value("${features.session.expirationTimeSeconds:10800}")
+    private Integer sessionExpirationTime;
+
+    @Value("${features.session.cache.ttlSeconds:60}")
+    private Integer cacheTtlSeconds;
+
+    @Value("${features.session.cache.maximumSize:100000}")
+    private Long maximumSize;
+
+    private Cache<String, PlayerSession> sessionsByToken;
+
+    private final ConcurrentMap<Long, String> tokensByPlayerId = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void init() {
+        sessionsByToken = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new SessionExpiry())
+                // runs the listener on the removing thread, so the index is cleaned before a token is cached again
+                .executor(Runnable::run)
+                .removalListener((String sessionToken, PlayerSession playerSession, RemovalCause cause) -> {
+                    if (playerSession != null && cause != RemovalCause.REPLACED) {
+                        tokensByPlayerId.remove(playerSession.getPlayerId(), sessionToken);
+                    }
+                })
+                .recordStats()
+                .build();
+    }
+
+    public PlayerSession get(String sessionToken) {
+        return sessionToken == null ? null : sessionsByToken.getIfPresent(sessionToken);
+    }
+
+    public void put(PlayerSession playerSession) {
+        tokensByPlayerId.put(playerSession.getPlayerId(), playerSession.getSessionToken());
+        sessionsByToken.put(playerSession.getSessionToken(), playerSession);
+    }
+
+    public void invalidate(String sessionToken) {
+        if (sessionToken != null) {
+            sessionsByToken.invalidate(sessionToken);
+        }
+    }
+
+    /**
+     * Drops the latest cached session of the player and returns it, if there was one.
+     */
+    public PlayerSession invalidatePlayer(Long playerId) {
+        String sessionToken = tokensByPlayerId.remove(playerId);
+        return sessionToken == null ? null : sessionsByToken.asMap().remove(sessionToken);
+    }
+
+    public CacheStats stats() {
+        return sessionsByToken.stats();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, sessionsByToken, "sessionTokens");
+    }
+
+    private class SessionExpiry implements Expiry<String, PlayerSession> {
+
+        @Override
+        public long expireAfterCreate(String sessionToken, PlayerSession playerSession, long currentTime) {
+            Duration untilSessionExpires = Duration.between(LocalDateTime.now(),
+                    playerSession.getLastActivityTime().plusSeconds(sessionExpirationTime));
+            long ttlNanos = Duration.ofSeconds(cacheTtlSeconds).toNanos();
+            return Math.max(0, Math.min(ttlNanos, untilSessionExpires.toNanos()));
+        }
+
+        @Override
+        public long expireAfterUpdate(String sessionToken, PlayerSession playerSession, long currentTime,
+                                      long currentDuration) {
+            return expireAfterCreate(sessionToken, playerSession, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String sessionToken, PlayerSession playerSession, long currentTime,
+                                    long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package dev.community.onlineplayerserverapi.utils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Splits large collections into chunks so IN-lists stay below the database limits.
+ */
+public final class Batches {
+
+    public static final int IN_LIST_BATCH_SIZE = 500;
+
+    private Batches() {
+    }
+
+    public static <T> List<List<T>> partition(Collection<T> values, int batchSize) {
+        List<T> source = new ArrayList<>(values);
+        List<List<T>> batches = new ArrayList<>();
+        for (int from = 0; from < source.size(); from += batchSize) {
+            batches.add(source.subList(from, Math.min(from + batchSize, source.size())));
+        }
+        return batches;
+    }
+}
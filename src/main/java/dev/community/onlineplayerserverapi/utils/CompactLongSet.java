@@ -0,0 +1,231 @@
+package dev.community.onlineplayerserverapi.utils;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Mutable {@code Set<Long>} backed by a sorted {@code long[]}. Team sets hold a handful of ids, so
+ * binary search and shifting on insert are cheaper than a hash table of boxed entries.
+ */
+public final class CompactLongSet extends AbstractSet<Long> {
+
+    private static final long[] EMPTY = new long[0];
+
+    private long[] values;
+    private int size;
+    private int modCount;
+
+    public CompactLongSet() {
+        this.values = EMPTY;
+    }
+
+    public CompactLongSet(int initialCapacity) {
+        this.values = initialCapacity == 0 ? EMPTY : new long[initialCapacity];
+    }
+
+    public boolean containsLong(long value) {
+        return Arrays.binarySearch(values, 0, size, value) >= 0;
+    }
+
+    public boolean addLong(long value) {
+        int index = Arrays.binarySearch(values, 0, size, value);
+        if (index >= 0) {
+            return false;
+        }
+        int insertAt = -index - 1;
+        if (size == values.length) {
+            values = Arrays.copyOf(values, Math.max(4, size * 2));
+        }
+        System.arraycopy(values, insertAt, values, insertAt + 1, size - insertAt);
+        values[insertAt] = value;
+        size++;
+        modCount++;
+        return true;
+    }
+
+    public boolean removeLong(long value) {
+        int index = Arrays.binarySearch(values, 0, size, value);
+        if (index < 0) {
+            return false;
+        }
+        removeAt(index);
+        return true;
+    }
+
+    /**
+     * Returns the value at the given position in ascending order.
+     */
+    public long getLong(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return values[index];
+    }
+
+    /**
+     * Appends without searching when the value is greater than the current maximum, which is
+     * always the case when parsing text written by {@link #appendTo}.
+     */
+    private void appendSorted(long value) {
+        if (size > 0 && values[size - 1] >= value) {
+            addLong(value);
+            return;
+        }
+        if (size == values.length) {
+            values = Arrays.copyOf(values, Math.max(4, size * 2));
+        }
+        values[size++] = value;
+        modCount++;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof Long value && containsLong(value);
+    }
+
+    @Override
+    public boolean add(Long value) {
+        return addLong(value);
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        return o instanceof Long value && removeLong(value);
+    }
+
+    @Override
+    public void clear() {
+        size = 0;
+        modCount++;
+    }
+
+    @Override
+    public Iterator<Long> iterator() {
+        return new Iterator<>() {
+            private int next;
+            private int last = -1;
+            private int expectedModCount = modCount;
+
+            @Override
+            public boolean hasNext() {
+                return next < size;
+            }
+
+            @Override
+            public Long next() {
+                if (expectedModCount != modCount) {
+                    throw new ConcurrentModificationException();
+                }
+                if (next >= size) {
+                    throw new NoSuchElementException();
+                }
+                last = next++;
+                return values[last];
+            }
+
+            @Override
+            public void remove() {
+                if (last < 0) {
+                    throw new IllegalStateException();
+                }
+                if (expectedModCount != modCount) {
+                    throw new ConcurrentModificationException();
+                }
+                removeAt(last);
+                next = last;
+                last = -1;
+                expectedModCount = modCount;
+            }
+        };
+    }
+
+    /**
+     * Parses ids joined by the delimiter without splitting or boxing. Trailing empty parts are
+     * ignored, as {@link String#split} does.
+     *
+     * @throws NumberFormatException when a part is not a number
+     */
+    public static CompactLongSet parse(CharSequence text, char delimiter) {
+        CompactLongSet set = new CompactLongSet(countParts(text, delimiter));
+        int length = text.length();
+        while (length > 0 && text.charAt(length - 1) == delimiter) {
+            length--;
+        }
+        int start = 0;
+        while (length > 0 && start <= length) {
+            int end = start;
+            while (end < length && text.charAt(end) != delimiter) {
+                end++;
+            }
+            set.appendSorted(parseLong(text, start, end));
+            start = end + 1;
+        }
+        return set;
+    }
+
+    /**
+     * Joins the ids with the delimiter without boxing.
+     */
+    public StringBuilder appendTo(StringBuilder builder, char delimiter) {
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                builder.append(delimiter);
+            }
+            builder.append(values[i]);
+        }
+        return builder;
+    }
+
+    private void removeAt(int index) {
+        System.arraycopy(values, index + 1, values, index, size - index - 1);
+        size--;
+        modCount++;
+    }
+
+    private static int countParts(CharSequence text, char delimiter) {
+        int parts = 1;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == delimiter) {
+                parts++;
+            }
+        }
+        return parts;
+    }
+
+    private static long parseLong(CharSequence text, int start, int end) {
+        int index = start;
+        boolean negative = index < end && text.charAt(index) == '-';
+        if (negative) {
+            index++;
+        }
+        if (index == end) {
+            throw new NumberFormatException("Invalid id: \"" + text.subSequence(start, end) + "\"");
+        }
+        long result = 0;
+        for (; index < end; index++) {
+            int digit = text.charAt(index) - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("Invalid id: \"" + text.subSequence(start, end) + "\"");
+            }
+            if (result < (Long.MIN_VALUE + digit) / 10) {
+                throw new NumberFormatException("Id out of range: \"" + text.subSequence(start, end) + "\"");
+            }
+            result = result * 10 - digit;
+        }
+        if (!negative) {
+            if (result == Long.MIN_VALUE) {
+                throw new NumberFormatException("Id out of range: \"" + text.subSequence(start, end) + "\"");
+            }
+            return -result;
+        }
+        return result;
+    }
+}
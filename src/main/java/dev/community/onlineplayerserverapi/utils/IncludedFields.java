@@ -0,0 +1,26 @@
+package dev.community.onlineplayerserverapi.utils;
+
+import dev.community.onlineplayerserverapi.models.PlayerDetailsRequestDto;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Resolves which response fields a details request asks for: the includes without the excludes.
+ */
+public final class IncludedFields {
+
+    private IncludedFields() {
+    }
+
+    public static Set<String> of(PlayerDetailsRequestDto playerDetailsRequestDto) {
+        if (playerDetailsRequestDto.getIncludes() == null) {
+            return Set.of();
+        }
+        Set<String> includedFields = new HashSet<>(playerDetailsRequestDto.getIncludes());
+        if (playerDetailsRequestDto.getExcludes() != null) {
+            includedFields.removeAll(playerDetailsRequestDto.getExcludes());
+        }
+        return includedFields;
+    }
+}
@@ -0,0 +1,12 @@
+package dev.community.onlineplayerserverapi.utils;
+
+/**
+ * Thrown for a page cursor that was not produced by {@link KeysetCursor}; a client error, not a
+ * server one.
+ */
+public class InvalidCursorException extends IllegalArgumentException {
+
+    public InvalidCursorException(Throwable cause) {
+        super("Invalid page cursor.", cause);
+    }
+}
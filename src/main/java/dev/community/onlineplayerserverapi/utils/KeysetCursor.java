@@ -0,0 +1,41 @@
+package dev.community.onlineplayerserverapi.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque cursor used by keyset (seek) pagination. It wraps the id of the last row
+ * returned in a page, so the next page starts right after it instead of skipping rows.
+ */
+public final class KeysetCursor {
+
+    private static final String PREFIX = "id:";
+
+    private KeysetCursor() {
+    }
+
+    public static String encode(Long lastId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((PREFIX + lastId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws InvalidCursorException when the cursor was not produced by {@link #encode}
+     */
+    public static Long decode(String cursor) {
+        String decoded;
+        try {
+            decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException(e);
+        }
+        if (!decoded.startsWith(PREFIX)) {
+            throw new InvalidCursorException(null);
+        }
+        try {
+            return Long.valueOf(decoded.substring(PREFIX.length()));
+        } catch (NumberFormatException e) {
+            throw new InvalidCursorException(e);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package dev.community.onlineplayerserverapi.converters;
+
+import dev.community.onlineplayerserverapi.utils.CompactLongSet;
+import org.junit.jupiter.api.Test;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongSetToStringConverterTest {
+
+    private final LongSetToStringConverter converter = new LongSetToStringConverter();
+
+    @Test
+    void roundTrip_keepsIdsSorted() {
+        Set<Long> ids = converter.convertToEntityAttribute("42,7,100000000000");
+
+        assertEquals(Set.of(7L, 42L, 100000000000L), ids);
+        assertEquals(List.of(7L, 42L, 100000000000L), List.copyOf(ids));
+        assertEquals("7,42,100000000000", converter.convertToDatabaseColumn(ids));
+    }
+
+    @Test
+    void convertToDatabaseColumn_acceptsAnySet() {
+        assertEquals("5", converter.convertToDatabaseColumn(Set.of(5L)));
+        assertNull(converter.convertToDatabaseColumn(Set.of()));
+        assertNull(converter.convertToDatabaseColumn(null));
+    }
+
+    @Test
+    void convertToEntityAttribute_returnsMutableSet() {
+        Set<Long> empty = converter.convertToEntityAttribute(null);
+        empty.add(3L);
+        Set<Long> ids = converter.convertToEntityAttribute("1,2,3");
+        ids.remove(2L);
+        ids.add(0L);
+
+        assertEquals(Set.of(3L), empty);
+        assertEquals("0,1,3", converter.convertToDatabaseColumn(ids));
+    }
+
+    @Test
+    void convertToEntityAttribute_ignoresTrailingDelimiters() {
+        assertEquals(Set.of(1L, 2L), converter.convertToEntityAttribute("1,2,"));
+        assertEquals(Set.of(1L, 2L), converter.convertToEntityAttribute("1,2,,,"));
+        assertEquals(Set.of(), converter.convertToEntityAttribute(","));
+        assertEquals("1,2", converter.convertToDatabaseColumn(converter.convertToEntityAttribute("2,1,")));
+    }
+
+    @Test
+    void convertToEntityAttribute_rejectsInvalidIds() {
+        assertThrows(NumberFormatException.class, () -> converter.convertToEntityAttribute("1,,2"));
+        assertThrows(NumberFormatException.class, () -> converter.convertToEntityAttribute("1,a"));
+        assertThrows(NumberFormatException.class, () -> converter.convertToEntityAttribute("9223372036854775808"));
+    }
+
+    @Test
+    void compactLongSet_iteratorRemove() {
+        CompactLongSet ids = CompactLongSet.parse("1,2,3,4", ',');
+        Iterator<Long> iterator = ids.iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next() % 2 == 0) {
+                iterator.remove();
+            }
+        }
+
+        assertEquals(Set.of(1L, 3L), ids);
+        assertTrue(ids.containsLong(3L));
+        assertFalse(ids.contains(2L));
+    }
+}
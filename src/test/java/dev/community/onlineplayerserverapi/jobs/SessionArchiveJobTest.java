@@ -0,0 +1,94 @@
+package dev.community.onlineplayerserverapi.jobs;
+
+import dev.community.onlineplayerserverapi.entities.PlayerPlayTime;
+import dev.community.onlineplayerserverapi.entities.PlayerSession;
+import dev.community.onlineplayerserverapi.entities.PlayerSessionArchive;
+import dev.community.onlineplayerserverapi.repositories.PlayerPlayTimeRepository;
+import dev.community.onlineplayerserverapi.repositories.SessionArchiveRepository;
+import dev.community.onlineplayerserverapi.repositories.SessionRepository;
+import dev.community.onlineplayerserverapi.services.SessionActivityBuffer;
+import dev.community.onlineplayerserverapi.services.SessionService;
+import dev.community.onlineplayerserverapi.services.SessionServiceImpl;
+import dev.community.onlineplayerserverapi.services.SessionTokenCache;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest(properties = {"features.session.archive.afterDays=30", "features.session.archive.batchSize=2"})
+@Import({SessionArchiveJob.class, SessionServiceImpl.class, SessionTokenCache.class, SessionActivityBuffer.class})
+class SessionArchiveJobTest {
+
+    @Autowired
+    private SessionArchiveJob sessionArchiveJob;
+
+    @Autowired
+    private SessionService sessionService;
+
+    @Autowired
+    private SessionRepository sessionRepository;
+
+    @Autowired
+    private SessionArchiveRepository sessionArchiveRepository;
+
+    @Autowired
+    private PlayerPlayTimeRepository playerPlayTimeRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    void archiveClosedSessions_movesOnlyOldClosedSessions() {
+        LocalDateTime now = LocalDateTime.now();
+        PlayerSession old = session(100L, "old", now.minusDays(40), true);
+        PlayerSession otherOld = session(100L, "other-old", now.minusDays(35), true);
+        PlayerSession thirdOld = session(200L, "third-old", now.minusDays(31), true);
+        PlayerSession recent = session(100L, "recent", now.minusDays(1), true);
+        PlayerSession opened = session(200L, "opened", now.minusDays(40), false);
+        entityManager.clear();
+
+        assertEquals(3, sessionArchiveJob.archiveClosedSessions());
+        entityManager.clear();
+
+        assertEquals(List.of(old.getId(), otherOld.getId(), thirdOld.getId()),
+                sessionArchiveRepository.findAll().stream().map(PlayerSessionArchive::getId).sorted().toList());
+        assertFalse(sessionRepository.existsById(old.getId()));
+        assertTrue(sessionRepository.existsById(recent.getId()));
+        assertTrue(sessionRepository.existsById(opened.getId()));
+    }
+
+    @Test
+    void recomputePlayTime_includesArchivedSessions() {
+        LocalDateTime now = LocalDateTime.now();
+        session(100L, "old", now.minusDays(40), true);
+        session(100L, "recent", now.minusDays(1), true);
+        sessionArchiveJob.archiveClosedSessions();
+        entityManager.clear();
+
+        sessionService.recomputePlayTime(List.of(100L));
+        entityManager.flush();
+        entityManager.clear();
+
+        PlayerPlayTime playerPlayTime = playerPlayTimeRepository.findById(100L).orElseThrow();
+        assertEquals(2 * 600L, playerPlayTime.getTotalSeconds());
+        assertEquals(2, playerPlayTime.getSessionCount());
+    }
+
+    private PlayerSession session(Long playerId, String token, LocalDateTime lastActivityTime, boolean closed) {
+        PlayerSession session = new PlayerSession();
+        session.setPlayerId(playerId);
+        session.setSessionToken(token);
+        session.setLoginTime(lastActivityTime.minusMinutes(10));
+        session.setLastActivityTime(lastActivityTime);
+        session.setIsClosed(closed);
+        return sessionRepository.saveAndFlush(session);
+    }
+}
@@ -0,0 +1,108 @@
+package dev.community.onlineplayerserverapi.jobs;
+
+import dev.community.onlineplayerserverapi.entities.PlayerPlayTime;
+import dev.community.onlineplayerserverapi.entities.PlayerSession;
+import dev.community.onlineplayerserverapi.repositories.PlayerPlayTimeRepository;
+import dev.community.onlineplayerserverapi.repositories.SessionRepository;
+import dev.community.onlineplayerserverapi.services.SessionActivityBuffer;
+import dev.community.onlineplayerserverapi.services.SessionServiceImpl;
+import dev.community.onlineplayerserverapi.services.SessionTokenCache;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest(properties = {"features.session.expirationTimeSeconds=3600", "features.session.expiry.batchSize=2"})
+@Import({SessionExpiryJob.class, SessionServiceImpl.class, SessionTokenCache.class, SessionActivityBuffer.class})
+class SessionExpiryJobTest {
+
+    @Autowired
+    private SessionExpiryJob sessionExpiryJob;
+
+    @Autowired
+    private SessionActivityBuffer sessionActivityBuffer;
+
+    @Autowired
+    private SessionRepository sessionRepository;
+
+    @Autowired
+    private PlayerPlayTimeRepository playerPlayTimeRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    void closeExpiredSessions_closesOnlyExpiredSessionsInBatches() {
+        LocalDateTime now = LocalDateTime.now();
+        PlayerSession expired = openedSession(100L, now.minusHours(3), now.minusHours(2));
+        PlayerSession otherExpired = openedSession(200L, now.minusHours(5), now.minusHours(4));
+        PlayerSession thirdExpired = openedSession(300L, now.minusHours(5), now.minusHours(4));
+        PlayerSession active = openedSession(400L, now.minusHours(3), now.minusMinutes(5));
+        entityManager.clear();
+
+        assertEquals(3, sessionExpiryJob.closeExpiredSessions());
+        entityManager.flush();
+        entityManager.clear();
+
+        assertTrue(sessionRepository.findById(expired.getId()).orElseThrow().getIsClosed());
+        assertTrue(sessionRepository.findById(otherExpired.getId()).orElseThrow().getIsClosed());
+        assertTrue(sessionRepository.findById(thirdExpired.getId()).orElseThrow().getIsClosed());
+        assertFalse(sessionRepository.findById(active.getId()).orElseThrow().getIsClosed());
+        assertEquals(expired.getLastActivityTime().withNano(0),
+                sessionRepository.findById(expired.getId()).orElseThrow().getLastActivityTime().withNano(0));
+    }
+
+    @Test
+    void closeExpiredSessions_addsSessionsToRollup() {
+        LocalDateTime now = LocalDateTime.now();
+        PlayerPlayTime playerPlayTime = new PlayerPlayTime();
+        playerPlayTime.setPlayerId(100L);
+        playerPlayTime.setTotalSeconds(100L);
+        playerPlayTime.setSessionCount(1);
+        playerPlayTimeRepository.saveAndFlush(playerPlayTime);
+        openedSession(100L, now.minusHours(3), now.minusHours(2));
+        openedSession(200L, now.minusHours(5), now.minusHours(4));
+        entityManager.clear();
+
+        sessionExpiryJob.closeExpiredSessions();
+        entityManager.flush();
+        entityManager.clear();
+
+        PlayerPlayTime updatedPlayTime = playerPlayTimeRepository.findById(100L).orElseThrow();
+        assertEquals(100L + 3600L, updatedPlayTime.getTotalSeconds());
+        assertEquals(2, updatedPlayTime.getSessionCount());
+        // the rollup did not exist yet, so it is rebuilt from the closed sessions
+        assertEquals(3600L, playerPlayTimeRepository.findById(200L).orElseThrow().getTotalSeconds());
+    }
+
+    @Test
+    void closeExpiredSessions_keepsSessionWithPendingActivity() {
+        LocalDateTime now = LocalDateTime.now();
+        PlayerSession session = openedSession(100L, now.minusHours(3), now.minusHours(2));
+        sessionActivityBuffer.record(session.getId(), now);
+        entityManager.clear();
+
+        assertEquals(0, sessionExpiryJob.closeExpiredSessions());
+        entityManager.flush();
+        entityManager.clear();
+
+        assertFalse(sessionRepository.findById(session.getId()).orElseThrow().getIsClosed());
+    }
+
+    private PlayerSession openedSession(Long playerId, LocalDateTime loginTime, LocalDateTime lastActivityTime) {
+        PlayerSession session = new PlayerSession();
+        session.setPlayerId(playerId);
+        session.setSessionToken("token-" + playerId);
+        session.setLoginTime(loginTime);
+        session.setLastActivityTime(lastActivityTime);
+        session.setIsClosed(false);
+        return sessionRepository.saveAndFlush(session);
+    }
+}
@@ -0,0 +1,48 @@
+package dev.community.onlineplayerserverapi.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SqlStatementsPerRequestFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final SqlStatementsPerRequestFilter filter = new SqlStatementsPerRequestFilter(meterRegistry);
+    private final SqlStatementCounter statementCounter = new SqlStatementCounter();
+
+    @Test
+    void doFilter_recordsStatementsIssuedByTheRequest() throws Exception {
+        statementCounter.inspect("select 1");
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/players/details");
+
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+            req.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/players/details");
+            statementCounter.inspect("select p from Player p");
+            statementCounter.inspect("select ps from PlayerSession ps");
+        });
+
+        DistributionSummary summary = meterRegistry.get(SqlStatementsPerRequestFilter.METRIC_NAME)
+                .tag("method", "GET")
+                .tag("uri", "/players/details")
+                .summary();
+        assertEquals(1, summary.count());
+        assertEquals(2, summary.totalAmount());
+    }
+
+    @Test
+    void doFilter_tagsUnmatchedRequests() throws Exception {
+        filter.doFilter(new MockHttpServletRequest("POST", "/missing"), new MockHttpServletResponse(),
+                (req, res) -> { });
+
+        DistributionSummary summary = meterRegistry.get(SqlStatementsPerRequestFilter.METRIC_NAME)
+                .tag("uri", "UNKNOWN")
+                .summary();
+        assertEquals(1, summary.count());
+        assertEquals(0, summary.totalAmount());
+    }
+}
@@ -0,0 +1,110 @@
+package dev.community.onlineplayerserverapi.services;
+
+import dev.community.onlineplayerserverapi.entities.Game;
+import dev.community.onlineplayerserverapi.entities.GameTeam;
+import dev.community.onlineplayerserverapi.models.GameDetailsDto;
+import dev.community.onlineplayerserverapi.models.GameDetailsResponseDto;
+import dev.community.onlineplayerserverapi.models.GameResult;
+import dev.community.onlineplayerserverapi.models.PlayerDetailsRequestDto;
+import dev.community.onlineplayerserverapi.repositories.GameRepository;
+import dev.community.onlineplayerserverapi.repositories.GameTeamRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import({GameServiceImpl.class, LobbyRegistry.class, SimpleMeterRegistry.class})
+class GameDetailsQueryTest {
+
+    private static final int GAMES = 20;
+
+    @Autowired
+    private GameService gameService;
+
+    @Autowired
+    private GameRepository gameRepository;
+
+    @Autowired
+    private GameTeamRepository gameTeamRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        LocalDateTime startTime = LocalDateTime.now().minusHours(1);
+        for (long i = 0; i < GAMES; i++) {
+            Game game = new Game();
+            game.setName("game" + i);
+            game.setHostPlayerId(i);
+            game.setStartTime(startTime);
+            game.setEndTime(startTime.plusMinutes(30));
+            game.setGameTeams(new ArrayList<>());
+            gameRepository.save(game);
+            gameTeamRepository.save(team(game, Set.of(i), Set.of(i)));
+            gameTeamRepository.save(team(game, Set.of(i + 100), Set.of()));
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void getGameDetails_narrowIncludesReadNoEntities() {
+        GameDetailsResponseDto response = gameService.getGameDetails(request(Set.of("gameName")));
+
+        assertEquals(GAMES, response.getGameDetails().size());
+        assertEquals("game0", response.getGameDetails().get(0).getGameName());
+        assertNull(response.getGameDetails().get(0).getTeamsDetails());
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals(3, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void getGameDetails_teamsAreReadWithoutLoadingEntities() {
+        GameDetailsResponseDto response = gameService.getGameDetails(request(Set.of("duration", "teamsDetails")));
+
+        GameDetailsDto gameDetails = response.getGameDetails().get(0);
+        assertEquals(1800L, gameDetails.getDuration());
+        assertEquals(2, gameDetails.getTeamsDetails().size());
+        assertEquals(GameResult.VICTORY, gameDetails.getTeamsDetails().get(0).getResult());
+        assertEquals(GameResult.DEFEAT, gameDetails.getTeamsDetails().get(1).getResult());
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals(4, statistics.getPrepareStatementCount());
+    }
+
+    private static GameTeam team(Game game, Set<Long> playerIds, Set<Long> remainingPlayers) {
+        GameTeam gameTeam = new GameTeam();
+        gameTeam.setGame(game);
+        gameTeam.setPlayersIds(playerIds);
+        gameTeam.setRemainingPlayers(remainingPlayers);
+        return gameTeam;
+    }
+
+    private static PlayerDetailsRequestDto request(Set<String> includes) {
+        PlayerDetailsRequestDto requestDto = new PlayerDetailsRequestDto();
+        requestDto.setIncludes(includes);
+        return requestDto;
+    }
+}
@@ -2,16 +2,43 @@ package dev.community.onlineplayerserverapi.services;
 
 import dev.community.onlineplayerserverapi.entities.Game;
 import dev.community.onlineplayerserverapi.entities.GameTeam;
+import dev.community.onlineplayerserverapi.entities.GameTeamMember;
+import dev.community.onlineplayerserverapi.entities.PlayerGameStats;
+import dev.community.onlineplayerserverapi.entities.PlayerSession;
+import dev.community.onlineplayerserverapi.mappers.PlayerMapper;
+import dev.community.onlineplayerserverapi.models.GameDetailsDto;
 import dev.community.onlineplayerserverapi.models.GameDetailsResponseDto;
+import dev.community.onlineplayerserverapi.models.GameRequestDto;
+import dev.community.onlineplayerserverapi.models.GameResult;
+import dev.community.onlineplayerserverapi.models.LoginResponseDto;
+import dev.community.onlineplayerserverapi.models.LoginStatus;
 import dev.community.onlineplayerserverapi.models.PlayerDetailsRequestDto;
 import dev.community.onlineplayerserverapi.repositories.GameRepository;
+import dev.community.onlineplayerserverapi.repositories.GameSummary;
+import dev.community.onlineplayerserverapi.repositories.GameTeamMemberRepository;
 import dev.community.onlineplayerserverapi.repositories.GameTeamRepository;
+import dev.community.onlineplayerserverapi.repositories.GameTeamSummary;
+import dev.community.onlineplayerserverapi.repositories.PlayerGameStatsRepository;
+import dev.community.onlineplayerserverapi.repositories.PlayerRepository;
+import dev.community.onlineplayerserverapi.utils.InvalidCursorException;
+import dev.community.onlineplayerserverapi.utils.KeysetCursor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -19,6 +46,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -34,6 +62,21 @@ class GameServiceImplTest {
     @Mock
     private GameTeamRepository gameTeamRepository;
 
+    @Mock
+    private GameTeamMemberRepository gameTeamMemberRepository;
+
+    @Mock
+    private PlayerGameStatsRepository playerGameStatsRepository;
+
+    @Spy
+    private LobbyRegistry lobbyRegistry = new LobbyRegistry();
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
     @InjectMocks
     private GameServiceImpl gameService;
 
@@ -43,12 +86,24 @@ class GameServiceImplTest {
 
     @BeforeEach
     void setUp() {
+        ReflectionTestUtils.setField(gameService, "maxPageSize", 10);
+        ReflectionTestUtils.setField(gameService, "createGameMaxAttempts", 3);
+        ReflectionTestUtils.setField(gameService, "joinGameMaxAttempts", 3);
+        ReflectionTestUtils.setField(gameService, "leaveGameMaxAttempts", 3);
+        lenient().when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        lenient().doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+
         game = new Game();
         game.setId(1L);
         game.setName("Test Game");
         game.setHostPlayerId(100L);
         game.setStartTime(LocalDateTime.now());
         game.setGameTeams(new ArrayList<>());
+        game.setVersion(0L);
 
         team1 = new GameTeam();
         team1.setId(1L);
@@ -65,82 +120,360 @@ class GameServiceImplTest {
 
     @Test
     void createGame_success() {
-        when(gameRepository.findFirstByNameOrderByStartTimeDesc(anyString())).thenReturn(Optional.empty());
-        when(gameRepository.save(any(Game.class))).thenReturn(game);
-        when(gameTeamRepository.save(any(GameTeam.class))).thenReturn(team1);
+        when(gameRepository.findFirstByNameAndEndTimeIsNullOrderByStartTimeDesc(anyString())).thenReturn(Optional.empty());
+        when(gameRepository.save(any(Game.class))).thenAnswer(this::persistGame);
 
         Game createdGame = gameService.createGame("Test Game", 100L);
 
         assertNotNull(createdGame);
         assertEquals("Test Game", createdGame.getName());
+        assertEquals("Test Game", createdGame.getActiveName());
         assertEquals(1, createdGame.getGameTeams().size());
-        verify(gameRepository, times(2)).save(any(Game.class));
+        assertSame(createdGame, createdGame.getGameTeams().get(0).getGame());
+        verify(gameRepository, times(1)).save(any(Game.class));
+        verify(gameRepository, times(1)).flush();
+        verify(gameTeamRepository, never()).save(any(GameTeam.class));
     }
 
     @Test
     void createGame_alreadyExists() {
-        when(gameRepository.findFirstByNameOrderByStartTimeDesc(anyString())).thenReturn(Optional.of(game));
+        when(gameRepository.findFirstByNameAndEndTimeIsNullOrderByStartTimeDesc(anyString())).thenReturn(Optional.of(game));
+
+        assertThrows(IllegalStateException.class, () -> gameService.createGame("Test Game", 100L));
+    }
+
+    @Test
+    void createGame_concurrentCreateWins() {
+        when(gameRepository.findFirstByNameAndEndTimeIsNullOrderByStartTimeDesc(anyString()))
+                .thenReturn(Optional.empty(), Optional.of(game));
+        when(gameRepository.save(any(Game.class))).thenAnswer(this::persistGame);
+        doThrow(new DataIntegrityViolationException("active_name")).when(gameRepository).flush();
+
+        assertThrows(IllegalStateException.class, () -> gameService.createGame("Test Game", 100L));
+        verify(transactionTemplate, times(2)).execute(any());
+        assertTrue(lobbyRegistry.find("Test Game").isEmpty());
+    }
+
+    @Test
+    void createGame_retriesWhenTheNameIsFreedAgain() {
+        when(gameRepository.findFirstByNameAndEndTimeIsNullOrderByStartTimeDesc(anyString())).thenReturn(Optional.empty());
+        when(gameRepository.save(any(Game.class))).thenAnswer(this::persistGame);
+        doThrow(new DataIntegrityViolationException("active_name")).doNothing().when(gameRepository).flush();
+
+        assertEquals(1L, gameService.createGame("Test Game", 100L).getId());
+        verify(transactionTemplate, times(2)).execute(any());
+    }
+
+    @Test
+    void createGame_givesUpAfterMaxAttempts() {
+        when(gameRepository.findFirstByNameAndEndTimeIsNullOrderByStartTimeDesc(anyString())).thenReturn(Optional.empty());
+        when(gameRepository.save(any(Game.class))).thenAnswer(this::persistGame);
+        doThrow(new DataIntegrityViolationException("active_name")).when(gameRepository).flush();
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> gameService.createGame("Test Game", 100L));
+        assertEquals("A game with this name already exists.", exception.getMessage());
+        verify(transactionTemplate, times(3)).execute(any());
+    }
+
+    @Test
+    void createGame_exhaustedAttemptsAreRejectedByThePlayerService() {
+        when(gameRepository.findFirstByNameAndEndTimeIsNullOrderByStartTimeDesc(anyString())).thenReturn(Optional.empty());
+        when(gameRepository.save(any(Game.class))).thenAnswer(this::persistGame);
+        doThrow(new DataIntegrityViolationException("active_name")).when(gameRepository).flush();
+        SessionService sessionService = mock(SessionService.class);
+        PlayerSession session = new PlayerSession();
+        session.setPlayerId(100L);
+        when(sessionService.getPlayerSession("token")).thenReturn(session);
+        PlayerService playerService = new PlayerServiceImpl(mock(PlayerRepository.class), mock(PlayerMapper.class),
+                sessionService, gameService, mock(PlayerNameFilter.class));
+
+        LoginResponseDto response = playerService.createGame(new GameRequestDto("Test Game", "token"));
+
+        assertEquals(LoginStatus.REJECTED, response.getLoginStatus());
+        assertEquals("A game with this name already exists.", response.getMessage());
+    }
+
+    @Test
+    void createGame_nameRegisteredAndOpen() {
+        lobbyRegistry.register(LobbyRegistry.Lobby.of("Test Game", 1L, LocalDateTime.now(), 0L, List.of()));
+        when(gameRepository.findFirstByNameAndEndTimeIsNullOrderByStartTimeDesc("Test Game")).thenReturn(Optional.of(game));
 
         assertThrows(IllegalStateException.class, () -> gameService.createGame("Test Game", 100L));
+        verify(gameRepository, never()).save(any(Game.class));
+    }
+
+    @Test
+    void createGame_staleRegisteredLobbyIsReplaced() {
+        // the game ended on another instance, so only this registry still has it
+        LobbyRegistry.Lobby staleLobby = lobbyRegistry.register(
+                LobbyRegistry.Lobby.of("Test Game", 9L, LocalDateTime.now(), 0L, List.of()));
+        when(gameRepository.findFirstByNameAndEndTimeIsNullOrderByStartTimeDesc("Test Game")).thenReturn(Optional.empty());
+        when(gameRepository.save(any(Game.class))).thenAnswer(this::persistGame);
+
+        gameService.createGame("Test Game", 100L);
+
+        assertNotSame(staleLobby, lobbyRegistry.find("Test Game").orElseThrow());
+        assertEquals(1L, lobbyRegistry.find("Test Game").orElseThrow().getGameId());
     }
 
     @Test
     void joinGame_success() {
-        when(gameRepository.findFirstByNameOrderByStartTimeDesc(anyString())).thenReturn(Optional.of(game));
+        when(gameRepository.findByActiveName("Test Game")).thenReturn(Optional.of(game));
+        when(gameTeamMemberRepository.findAllByGameId(1L)).thenReturn(List.of(new GameTeamMember(1L, 100L, true)));
         when(gameTeamRepository.save(any(GameTeam.class))).thenReturn(team2);
-        when(gameRepository.save(any(Game.class))).thenReturn(game);
 
         Game joinedGame = gameService.joinGame("Test Game", 200L);
 
-        assertNotNull(joinedGame);
-        assertEquals(1, joinedGame.getGameTeams().size());
+        assertSame(game, joinedGame);
+        verify(gameTeamMemberRepository).save(new GameTeamMember(2L, 200L, true));
+        verify(gameRepository, never()).save(any(Game.class));
+    }
+
+    @Test
+    void joinGame_servedByRegisteredLobby() {
+        when(gameRepository.findByActiveName("Test Game")).thenReturn(Optional.of(game));
+        when(gameTeamMemberRepository.findAllByGameId(1L)).thenReturn(List.of(new GameTeamMember(1L, 100L, true)));
+        when(gameTeamRepository.save(any(GameTeam.class))).thenReturn(team2);
+
+        gameService.joinGame("Test Game", 200L);
+        // the join committed with the forced increment
+        game.setVersion(1L);
+
+        assertThrows(IllegalStateException.class, () -> gameService.joinGame("Test Game", 200L));
+        assertThrows(IllegalStateException.class, () -> gameService.joinGame("Test Game", 100L));
+        verify(gameRepository, times(3)).findByActiveName("Test Game");
+        verify(gameTeamMemberRepository, times(1)).findAllByGameId(1L);
+    }
+
+    @Test
+    void joinGame_reloadsLobbyBehindTheGameVersion() {
+        when(gameRepository.findByActiveName("Test Game")).thenReturn(Optional.of(game));
+        when(gameTeamMemberRepository.findAllByGameId(1L)).thenReturn(List.of(new GameTeamMember(1L, 100L, true)));
+        when(gameTeamRepository.save(any(GameTeam.class))).thenReturn(team2);
+        lobbyRegistry.register(LobbyRegistry.Lobby.of("Test Game", 1L, LocalDateTime.now(), 0L,
+                List.of(new GameTeamMember(1L, 100L, true), new GameTeamMember(2L, 200L, true))));
+        // another instance let the player leave, so the registered lobby is one version behind
+        game.setVersion(1L);
+
+        gameService.joinGame("Test Game", 200L);
+
+        verify(gameTeamMemberRepository).save(new GameTeamMember(2L, 200L, true));
+        assertTrue(lobbyRegistry.find("Test Game").orElseThrow().isAt(2L));
+    }
+
+    @Test
+    void joinGame_retriesOnVersionConflict() {
+        when(gameRepository.findByActiveName("Test Game")).thenReturn(Optional.of(game));
+        when(gameTeamMemberRepository.findAllByGameId(1L)).thenReturn(List.of(new GameTeamMember(1L, 100L, true)));
+        when(gameTeamRepository.save(any(GameTeam.class))).thenReturn(team2);
+        doAnswer(invocation -> {
+            invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null);
+            // the commit lost against a join on another instance, which rolls the lobby back
+            lobbyRegistry.find("Test Game").ifPresent(lobbyRegistry::remove);
+            throw new OptimisticLockingFailureException("T_GAME");
+        }).doAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null))
+                .when(transactionTemplate).execute(any());
+
+        assertSame(game, gameService.joinGame("Test Game", 200L));
+        verify(gameTeamMemberRepository, times(2)).findAllByGameId(1L);
+        assertEquals(1, meterRegistry.get("games.optimistic.conflicts").tag("operation", "join")
+                .tag("outcome", "retried").counter().count());
     }
 
     @Test
     void joinGame_notFound() {
-        when(gameRepository.findFirstByNameOrderByStartTimeDesc(anyString())).thenReturn(Optional.empty());
+        when(gameRepository.findByActiveName("Test Game")).thenReturn(Optional.empty());
+
+        assertThrows(IllegalStateException.class, () -> gameService.joinGame("Test Game", 200L));
+    }
+
+    @Test
+    void joinGame_afterJoinWindow() {
+        game.setStartTime(LocalDateTime.now().minusMinutes(11));
+        when(gameRepository.findByActiveName("Test Game")).thenReturn(Optional.of(game));
 
         assertThrows(IllegalStateException.class, () -> gameService.joinGame("Test Game", 200L));
+        verify(gameTeamRepository, never()).save(any(GameTeam.class));
     }
 
     @Test
     void joinGame_playerAlreadyInGame() {
-        game.getGameTeams().add(team1);
-        when(gameRepository.findFirstByNameOrderByStartTimeDesc(anyString())).thenReturn(Optional.of(game));
+        when(gameRepository.findByActiveName("Test Game")).thenReturn(Optional.of(game));
+        when(gameTeamMemberRepository.findAllByGameId(1L)).thenReturn(List.of(new GameTeamMember(1L, 100L, true)));
 
         assertThrows(IllegalStateException.class, () -> gameService.joinGame("Test Game", 100L));
+        verify(gameTeamRepository, never()).save(any(GameTeam.class));
     }
 
     @Test
     void leaveGame_success() {
-        game.getGameTeams().add(team1);
-        game.getGameTeams().add(team2);
-        when(gameRepository.findFirstByNameOrderByStartTimeDesc(anyString())).thenReturn(Optional.of(game));
+        when(gameRepository.findByActiveName("Test Game")).thenReturn(Optional.of(game));
+        when(gameTeamMemberRepository.findAllByGameId(1L)).thenReturn(List.of(
+                new GameTeamMember(1L, 100L, true), new GameTeamMember(2L, 200L, true)));
+        when(gameTeamRepository.findById(1L)).thenReturn(Optional.of(team1));
 
         gameService.leaveGame("Test Game", 100L);
 
         assertFalse(team1.getRemainingPlayers().contains(100L));
         verify(gameTeamRepository, times(1)).save(team1);
+        verify(gameTeamMemberRepository).markLeft(1L, 100L);
         assertNull(game.getEndTime());
     }
 
     @Test
     void leaveGame_lastTeamEndsGame() {
-        game.getGameTeams().add(team1);
-        team2.getRemainingPlayers().clear();
-        game.getGameTeams().add(team2);
-        when(gameRepository.findFirstByNameOrderByStartTimeDesc(anyString())).thenReturn(Optional.of(game));
+        when(gameRepository.findByActiveName("Test Game")).thenReturn(Optional.of(game));
+        when(gameTeamMemberRepository.findAllByGameId(1L)).thenReturn(List.of(new GameTeamMember(1L, 100L, true)));
+
+        gameService.leaveGame("Test Game", 100L);
+
+        assertNotNull(game.getEndTime());
+        assertNull(game.getActiveName());
+        verify(gameRepository, times(1)).save(game);
+        verify(gameTeamRepository, never()).save(any(GameTeam.class));
+        verify(gameTeamMemberRepository, never()).markLeft(any(), any());
+        assertTrue(lobbyRegistry.find("Test Game").isEmpty());
+    }
+
+    @Test
+    void leaveGame_registeredLobbyStillReadsTheGame() {
+        when(gameRepository.findByActiveName("Test Game")).thenReturn(Optional.of(game));
+        when(gameTeamRepository.findById(1L)).thenReturn(Optional.of(team1));
+        lobbyRegistry.register(LobbyRegistry.Lobby.of("Test Game", 1L, LocalDateTime.now(), 0L,
+                List.of(new GameTeamMember(1L, 100L, true), new GameTeamMember(2L, 200L, true))));
+
+        gameService.leaveGame("Test Game", 100L);
+
+        verify(gameRepository).findByActiveName("Test Game");
+        verify(gameTeamMemberRepository, never()).findAllByGameId(any());
+        verify(gameTeamMemberRepository).markLeft(1L, 100L);
+    }
+
+    @Test
+    void leaveGame_reloadsLobbyBehindTheGameVersion() {
+        when(gameRepository.findByActiveName("Test Game")).thenReturn(Optional.of(game));
+        when(gameTeamMemberRepository.findAllByGameId(1L)).thenReturn(List.of(
+                new GameTeamMember(1L, 100L, true), new GameTeamMember(2L, 200L, false)));
+        lobbyRegistry.register(LobbyRegistry.Lobby.of("Test Game", 1L, LocalDateTime.now(), 0L,
+                List.of(new GameTeamMember(1L, 100L, true), new GameTeamMember(2L, 200L, true))));
+        // the other team left on another instance, so this leave ends the game
+        game.setVersion(1L);
+
+        gameService.leaveGame("Test Game", 100L);
+
+        assertNotNull(game.getEndTime());
+        verify(gameTeamMemberRepository, never()).markLeft(any(), any());
+    }
+
+    @Test
+    void leaveGame_afterJoinWindowUsesTeamMembers() {
+        game.setStartTime(LocalDateTime.now().minusMinutes(11));
+        when(gameRepository.findByActiveName("Test Game")).thenReturn(Optional.of(game));
+        when(gameTeamMemberRepository.findRemainingTeamId(1L, 100L)).thenReturn(Optional.of(1L));
+        when(gameTeamMemberRepository.countTeamsWithRemainingPlayers(1L)).thenReturn(2L);
+        when(gameTeamRepository.findById(1L)).thenReturn(Optional.of(team1));
+
+        gameService.leaveGame("Test Game", 100L);
+
+        assertFalse(team1.getRemainingPlayers().contains(100L));
+        verify(gameTeamMemberRepository).markLeft(1L, 100L);
+        assertNull(game.getEndTime());
+    }
+
+    @Test
+    void leaveGame_afterJoinWindowLastTeamEndsGame() {
+        game.setStartTime(LocalDateTime.now().minusMinutes(11));
+        when(gameRepository.findByActiveName("Test Game")).thenReturn(Optional.of(game));
+        when(gameTeamMemberRepository.findRemainingTeamId(1L, 100L)).thenReturn(Optional.of(1L));
+        when(gameTeamMemberRepository.countTeamsWithRemainingPlayers(1L)).thenReturn(1L);
 
         gameService.leaveGame("Test Game", 100L);
 
         assertNotNull(game.getEndTime());
         verify(gameRepository, times(1)).save(game);
+        verify(gameTeamMemberRepository, never()).markLeft(any(), any());
+    }
+
+    @Test
+    void leaveGame_retriesOnVersionConflict() {
+        game.setStartTime(LocalDateTime.now().minusMinutes(11));
+        when(gameRepository.findByActiveName("Test Game")).thenReturn(Optional.of(game));
+        when(gameTeamMemberRepository.findRemainingTeamId(1L, 100L)).thenReturn(Optional.of(1L));
+        when(gameTeamMemberRepository.countTeamsWithRemainingPlayers(1L)).thenReturn(2L, 1L);
+        when(gameTeamRepository.findById(1L)).thenReturn(Optional.of(team1));
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            throw new OptimisticLockingFailureException("T_GAME");
+        }).doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+
+        gameService.leaveGame("Test Game", 100L);
+
+        assertNotNull(game.getEndTime());
+        assertEquals(1, meterRegistry.get("games.optimistic.conflicts").tag("outcome", "retried").counter().count());
+    }
+
+    @Test
+    void leaveGame_givesUpAfterMaxAttempts() {
+        doThrow(new OptimisticLockingFailureException("T_GAME")).when(transactionTemplate).executeWithoutResult(any());
+
+        assertThrows(IllegalStateException.class, () -> gameService.leaveGame("Test Game", 100L));
+        verify(transactionTemplate, times(3)).executeWithoutResult(any());
+        assertEquals(2, meterRegistry.get("games.optimistic.conflicts").tag("outcome", "retried").counter().count());
+        assertEquals(1, meterRegistry.get("games.optimistic.conflicts").tag("outcome", "exhausted").counter().count());
+    }
+
+    @Test
+    void leaveGame_playerNotInGame() {
+        when(gameRepository.findByActiveName("Test Game")).thenReturn(Optional.of(game));
+
+        gameService.leaveGame("Test Game", 300L);
+
+        assertNull(game.getEndTime());
+        verify(gameRepository, never()).save(any(Game.class));
         verify(gameTeamRepository, never()).save(any(GameTeam.class));
     }
 
+    @Test
+    void getGamesPlayed_readsStatsRow() {
+        PlayerGameStats playerGameStats = new PlayerGameStats();
+        playerGameStats.setPlayerId(100L);
+        playerGameStats.setGamesPlayed(3);
+        when(playerGameStatsRepository.findById(100L)).thenReturn(Optional.of(playerGameStats));
+
+        assertEquals(3, gameService.getGamesPlayed(100L));
+        assertEquals(0, gameService.getGamesPlayed(200L));
+    }
+
+    @Test
+    void leaveGame_lastTeamRecordsResults() {
+        when(gameRepository.findByActiveName("Test Game")).thenReturn(Optional.of(game));
+        when(gameTeamMemberRepository.findAllByGameId(1L)).thenReturn(List.of(
+                new GameTeamMember(1L, 100L, true), new GameTeamMember(2L, 200L, false)));
+
+        gameService.leaveGame("Test Game", 100L);
+
+        verify(playerGameStatsRepository).addGameResult(100L, 1, 0);
+        verify(playerGameStatsRepository).addGameResult(200L, 0, 1);
+        verify(playerGameStatsRepository, never()).save(any(PlayerGameStats.class));
+    }
+
+    @Test
+    void leaveGame_singleTeamGameIsNotCounted() {
+        when(gameRepository.findByActiveName("Test Game")).thenReturn(Optional.of(game));
+        when(gameTeamMemberRepository.findAllByGameId(1L)).thenReturn(List.of(new GameTeamMember(1L, 100L, true)));
+
+        gameService.leaveGame("Test Game", 100L);
+
+        verifyNoInteractions(playerGameStatsRepository);
+    }
+
     @Test
     void leaveGame_notFound() {
-        when(gameRepository.findFirstByNameOrderByStartTimeDesc(anyString())).thenReturn(Optional.empty());
+        when(gameRepository.findByActiveName("Test Game")).thenReturn(Optional.empty());
 
         assertThrows(IllegalStateException.class, () -> gameService.leaveGame("Test Game", 100L));
     }
@@ -150,7 +483,11 @@ class GameServiceImplTest {
         game.getGameTeams().add(team1);
         game.getGameTeams().add(team2);
         game.setEndTime(LocalDateTime.now().plusHours(1));
-        when(gameRepository.findAll()).thenReturn(List.of(game));
+        when(gameRepository.findDetailedGameIdsAfter(0L, Limit.of(10))).thenReturn(List.of(1L));
+        when(gameRepository.findSummariesByIdIn(List.of(1L))).thenReturn(List.of(summaryOf(game)));
+        when(gameTeamRepository.findSummariesByGameIdIn(List.of(1L)))
+                .thenReturn(List.of(summaryOf(team1), summaryOf(team2)));
+        when(gameRepository.countDetailedGames()).thenReturn(1L);
         PlayerDetailsRequestDto requestDto = new PlayerDetailsRequestDto();
         requestDto.setIncludes(Set.of("gameName", "duration", "startTime", "endTime", "teamsDetails"));
 
@@ -160,5 +497,118 @@ class GameServiceImplTest {
         assertEquals(1, response.getTotalNumber());
         assertEquals("Test Game", response.getGameDetails().get(0).getGameName());
         assertNotNull(response.getGameDetails().get(0).getDuration());
+        assertEquals(2, response.getGameDetails().get(0).getTeamsDetails().size());
+        assertEquals(GameResult.VICTORY, response.getGameDetails().get(0).getTeamsDetails().get(0).getResult());
+    }
+
+    @Test
+    void getGameDetails_narrowIncludesSkipTeams() {
+        when(gameRepository.findDetailedGameIdsAfter(0L, Limit.of(10))).thenReturn(List.of(1L));
+        when(gameRepository.findSummariesByIdIn(List.of(1L))).thenReturn(List.of(summaryOf(game)));
+        PlayerDetailsRequestDto requestDto = new PlayerDetailsRequestDto();
+        requestDto.setIncludes(Set.of("gameName", "teamsDetails"));
+        requestDto.setExcludes(Set.of("teamsDetails"));
+
+        GameDetailsResponseDto response = gameService.getGameDetails(requestDto);
+
+        assertEquals("Test Game", response.getGameDetails().get(0).getGameName());
+        assertNull(response.getGameDetails().get(0).getTeamsDetails());
+        verify(gameTeamRepository, never()).findSummariesByGameIdIn(any());
+        verify(gameRepository, never()).findAllById(any());
+    }
+
+    @Test
+    void getGameDetails_fullPageReturnsCursor() {
+        when(gameRepository.findDetailedGameIdsAfter(5L, Limit.of(1))).thenReturn(List.of(6L));
+        PlayerDetailsRequestDto requestDto = new PlayerDetailsRequestDto();
+        requestDto.setPageSize(1);
+        requestDto.setCursor(KeysetCursor.encode(5L));
+
+        GameDetailsResponseDto response = gameService.getGameDetails(requestDto);
+
+        assertEquals(1, response.getGameDetails().size());
+        assertEquals(6L, KeysetCursor.decode(response.getNextCursor()));
+        assertNull(response.getTotalNumber());
+        verify(gameRepository, never()).findAll();
+        verify(gameRepository, never()).countDetailedGames();
+    }
+
+    @Test
+    void getGameDetails_invalidCursor() {
+        PlayerDetailsRequestDto requestDto = new PlayerDetailsRequestDto();
+        requestDto.setCursor("not-a-cursor");
+
+        assertThrows(InvalidCursorException.class, () -> gameService.getGameDetails(requestDto));
+        verify(gameRepository, never()).findDetailedGameIdsAfter(any(), any());
+    }
+
+    @Test
+    void streamGameDetails_readsChunksUntilExhausted() {
+        when(gameRepository.findDetailedGameIdsAfter(0L, Limit.of(2))).thenReturn(List.of(1L, 2L));
+        when(gameRepository.findDetailedGameIdsAfter(2L, Limit.of(2))).thenReturn(List.of(3L));
+        PlayerDetailsRequestDto requestDto = new PlayerDetailsRequestDto();
+        requestDto.setPageSize(2);
+        List<List<GameDetailsDto>> chunks = new ArrayList<>();
+
+        gameService.streamGameDetails(requestDto, chunks::add);
+
+        assertEquals(2, chunks.size());
+        assertEquals(2, chunks.get(0).size());
+        assertEquals(1, chunks.get(1).size());
+        verify(gameRepository, never()).countDetailedGames();
+        verify(gameRepository, never()).findSummariesByIdIn(any());
+    }
+
+    private static GameSummary summaryOf(Game game) {
+        return new GameSummary() {
+            @Override
+            public Long getId() {
+                return game.getId();
+            }
+
+            @Override
+            public String getName() {
+                return game.getName();
+            }
+
+            @Override
+            public LocalDateTime getStartTime() {
+                return game.getStartTime();
+            }
+
+            @Override
+            public LocalDateTime getEndTime() {
+                return game.getEndTime();
+            }
+        };
+    }
+
+    private static GameTeamSummary summaryOf(GameTeam gameTeam) {
+        return new GameTeamSummary() {
+            @Override
+            public Long getGameId() {
+                return gameTeam.getGame().getId();
+            }
+
+            @Override
+            public Set<Long> getPlayersIds() {
+                return gameTeam.getPlayersIds();
+            }
+
+            @Override
+            public Set<Long> getRemainingPlayers() {
+                return gameTeam.getRemainingPlayers();
+            }
+        };
+    }
+
+    /**
+     * Assigns ids the way persisting with sequence ids does, cascading to the teams.
+     */
+    private Game persistGame(InvocationOnMock invocation) {
+        Game newGame = invocation.getArgument(0);
+        newGame.setId(1L);
+        newGame.getGameTeams().forEach(team -> team.setId(1L));
+        return newGame;
     }
 }
@@ -0,0 +1,117 @@
+package dev.community.onlineplayerserverapi.services;
+
+import dev.community.onlineplayerserverapi.entities.Game;
+import dev.community.onlineplayerserverapi.repositories.GameRepository;
+import dev.community.onlineplayerserverapi.repositories.GameTeamMemberRepository;
+import dev.community.onlineplayerserverapi.repositories.GameTeamRepository;
+import dev.community.onlineplayerserverapi.repositories.PlayerGameStatsRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs a join or leave that rolls back alongside a leave that commits, each in its own
+ * transaction, to check that no decision is taken on uncommitted lobby state.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({GameServiceImpl.class, LobbyRegistry.class, SimpleMeterRegistry.class})
+class LobbyConcurrencyTest {
+
+    @Autowired
+    private GameService gameService;
+
+    @Autowired
+    private LobbyRegistry lobbyRegistry;
+
+    @Autowired
+    private GameRepository gameRepository;
+
+    @Autowired
+    private GameTeamRepository gameTeamRepository;
+
+    @Autowired
+    private GameTeamMemberRepository gameTeamMemberRepository;
+
+    @Autowired
+    private PlayerGameStatsRepository playerGameStatsRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @AfterEach
+    void tearDown() {
+        gameTeamMemberRepository.deleteAllInBatch();
+        gameTeamRepository.deleteAllInBatch();
+        gameRepository.deleteAllInBatch();
+        playerGameStatsRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void leave_lastTeamEndsTheGameWhileAJoinRollsBack() throws Exception {
+        Game game = gameService.createGame("joined", 100L);
+
+        // the join is still open while the host leaves, then rolls back
+        runAndRollBack(() -> gameService.joinGame("joined", 200L),
+                () -> gameService.leaveGame("joined", 100L));
+
+        assertNotNull(gameRepository.findById(game.getId()).orElseThrow().getEndTime());
+        assertTrue(lobbyRegistry.find("joined").isEmpty());
+    }
+
+    @Test
+    void leave_otherTeamStaysWhileItsLeaveRollsBack() throws Exception {
+        Game game = gameService.createGame("left", 100L);
+        gameService.joinGame("left", 200L);
+
+        // the second team's leave is still open while the host leaves, then rolls back
+        runAndRollBack(() -> gameService.leaveGame("left", 200L),
+                () -> gameService.leaveGame("left", 100L));
+
+        assertNull(gameRepository.findById(game.getId()).orElseThrow().getEndTime());
+
+        gameService.leaveGame("left", 200L);
+
+        assertNotNull(gameRepository.findById(game.getId()).orElseThrow().getEndTime());
+    }
+
+    /**
+     * Runs the first action in a transaction that stays open until the second one has committed,
+     * then rolls it back.
+     */
+    private void runAndRollBack(Runnable rolledBack, Runnable committed) throws Exception {
+        CountDownLatch decided = new CountDownLatch(1);
+        CountDownLatch resume = new CountDownLatch(1);
+        CompletableFuture<Void> pending = CompletableFuture.runAsync(() -> transactionTemplate.executeWithoutResult(status -> {
+            rolledBack.run();
+            decided.countDown();
+            try {
+                assertTrue(resume.await(10, TimeUnit.SECONDS));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            status.setRollbackOnly();
+        }));
+        try {
+            assertTrue(decided.await(10, TimeUnit.SECONDS));
+            committed.run();
+        } finally {
+            resume.countDown();
+            pending.get(10, TimeUnit.SECONDS);
+        }
+    }
+}
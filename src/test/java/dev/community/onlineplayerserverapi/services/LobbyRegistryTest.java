@@ -0,0 +1,142 @@
+package dev.community.onlineplayerserverapi.services;
+
+import dev.community.onlineplayerserverapi.entities.GameTeamMember;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LobbyRegistryTest {
+
+    private final LobbyRegistry lobbyRegistry = new LobbyRegistry();
+
+    @Test
+    void draft_changesStayInvisibleUntilPublished() {
+        LobbyRegistry.Lobby lobby = LobbyRegistry.Lobby.of("game", 1L, LocalDateTime.now(), 0L,
+                List.of(new GameTeamMember(1L, 100L, true)));
+
+        LobbyRegistry.Draft draft = lobby.draftAt(0L).orElseThrow();
+        assertEquals(LobbyRegistry.JoinResult.JOINED, draft.join(200L));
+        assertEquals(LobbyRegistry.JoinResult.JOINED, lobby.draftAt(0L).orElseThrow().join(200L));
+
+        lobbyRegistry.publishOnCommit(draft);
+
+        assertTrue(lobby.isAt(1L));
+        assertTrue(lobby.draftAt(0L).isEmpty());
+        assertEquals(LobbyRegistry.JoinResult.ALREADY_IN_GAME, lobby.draftAt(1L).orElseThrow().join(200L));
+    }
+
+    @Test
+    void publish_concurrentDraftsOfTheSameStatePublishOne() throws Exception {
+        LobbyRegistry.Lobby lobby = lobbyRegistry.register(
+                LobbyRegistry.Lobby.of("game", 1L, LocalDateTime.now(), 0L, List.of(new GameTeamMember(1L, 100L, true))));
+        List<LobbyRegistry.Draft> drafts = LongStream.range(0, 100)
+                .mapToObj(i -> {
+                    LobbyRegistry.Draft draft = lobby.draftAt(0L).orElseThrow();
+                    draft.join(200L + i);
+                    return draft;
+                })
+                .toList();
+        AtomicInteger published = new AtomicInteger();
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            List<Future<?>> futures = drafts.stream()
+                    .<Future<?>>map(draft -> executor.submit(() -> {
+                        if (draft.publish()) {
+                            published.incrementAndGet();
+                        }
+                    }))
+                    .toList();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+
+        assertEquals(1, published.get());
+        assertTrue(lobby.isAt(1L));
+    }
+
+    @Test
+    void publishOnCommit_dropsLobbyThatMovedOn() {
+        LobbyRegistry.Lobby lobby = lobbyRegistry.register(
+                LobbyRegistry.Lobby.of("game", 1L, LocalDateTime.now(), 0L, List.of(new GameTeamMember(1L, 100L, true))));
+        LobbyRegistry.Draft first = lobby.draftAt(0L).orElseThrow();
+        LobbyRegistry.Draft second = lobby.draftAt(0L).orElseThrow();
+
+        lobbyRegistry.publishOnCommit(first);
+        lobbyRegistry.publishOnCommit(second);
+
+        assertTrue(lobbyRegistry.find("game").isEmpty());
+    }
+
+    @Test
+    void publishOnCommit_keepsLobbyUnchangedOnRollback() {
+        LobbyRegistry.Lobby lobby = lobbyRegistry.register(
+                LobbyRegistry.Lobby.of("game", 1L, LocalDateTime.now(), 0L, List.of(new GameTeamMember(1L, 100L, true))));
+        LobbyRegistry.Draft draft = lobby.draftAt(0L).orElseThrow();
+        draft.join(200L);
+        draft.assignTeam(200L, 2L);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            lobbyRegistry.publishOnCommit(draft);
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertTrue(lobby.isAt(0L));
+        assertEquals(LobbyRegistry.LeaveResult.NOT_IN_GAME, lobby.draftAt(0L).orElseThrow().leave(200L).result());
+        assertSame(lobby, lobbyRegistry.find("game").orElseThrow());
+    }
+
+    @Test
+    void leave_lastTeamEndsTheGame() {
+        LobbyRegistry.Lobby lobby = lobbyRegistry.register(LobbyRegistry.Lobby.of("game", 1L, LocalDateTime.now(), 0L,
+                List.of(new GameTeamMember(1L, 100L, true), new GameTeamMember(2L, 200L, true))));
+
+        LobbyRegistry.Draft draft = lobby.draftAt(0L).orElseThrow();
+        assertEquals(LobbyRegistry.LeaveResult.LEFT, draft.leave(100L).result());
+        assertEquals(LobbyRegistry.LeaveResult.LAST_TEAM_LEFT, draft.leave(200L).result());
+        assertEquals(LobbyRegistry.LeaveResult.NOT_IN_GAME, draft.leave(200L).result());
+        assertTrue(lobby.isOpen());
+
+        lobbyRegistry.publishOnCommit(draft);
+
+        assertFalse(lobby.isOpen());
+        assertTrue(lobbyRegistry.find("game").isEmpty());
+    }
+
+    @Test
+    void join_reservedPlayerRemainsOnlyOnceTheTeamIsAssigned() {
+        LobbyRegistry.Draft draft = LobbyRegistry.Lobby.of("game", 1L, LocalDateTime.now(), 0L,
+                List.of(new GameTeamMember(1L, 100L, true))).draftAt(0L).orElseThrow();
+
+        assertEquals(LobbyRegistry.JoinResult.JOINED, draft.join(200L));
+        assertEquals(LobbyRegistry.LeaveResult.NOT_IN_GAME, draft.leave(200L).result());
+
+        draft.assignTeam(200L, 2L);
+        LobbyRegistry.Departure departure = draft.leave(200L);
+        assertEquals(LobbyRegistry.LeaveResult.LEFT, departure.result());
+        assertEquals(2L, departure.teamId());
+    }
+
+    @Test
+    void find_dropsLobbiesPastTheJoinWindow() {
+        lobbyRegistry.register(LobbyRegistry.Lobby.of("game", 1L, LocalDateTime.now().minusMinutes(11), 0L, List.of()));
+
+        assertTrue(lobbyRegistry.find("game").isEmpty());
+        assertEquals(LobbyRegistry.JoinResult.CLOSED, LobbyRegistry.Lobby.of("game", 1L,
+                LocalDateTime.now().minusMinutes(11), 0L, List.of()).draftAt(0L).orElseThrow().join(200L));
+    }
+}
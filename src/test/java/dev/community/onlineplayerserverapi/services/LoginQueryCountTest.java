@@ -0,0 +1,156 @@
+package dev.community.onlineplayerserverapi.services;
+
+import dev.community.onlineplayerserverapi.entities.Player;
+import dev.community.onlineplayerserverapi.entities.PlayerPlayTime;
+import dev.community.onlineplayerserverapi.entities.PlayerSession;
+import dev.community.onlineplayerserverapi.mappers.PlayerMapper;
+import dev.community.onlineplayerserverapi.models.LoginResponseDto;
+import dev.community.onlineplayerserverapi.models.LoginStatus;
+import dev.community.onlineplayerserverapi.models.PlayerDto;
+import dev.community.onlineplayerserverapi.repositories.PlayerPlayTimeRepository;
+import dev.community.onlineplayerserverapi.repositories.PlayerRepository;
+import dev.community.onlineplayerserverapi.repositories.SessionRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import({PlayerServiceImpl.class, PlayerNameFilter.class, SessionServiceImpl.class, SessionTokenCache.class,
+        SessionActivityBuffer.class})
+class LoginQueryCountTest {
+
+    /**
+     * Player lookup, lock of the opened sessions, rollup update, bulk close and insert of the new
+     * session.
+     */
+    private static final long LOGIN_STATEMENTS = 5;
+
+    @Autowired
+    private PlayerService playerService;
+
+    @Autowired
+    private PlayerRepository playerRepository;
+
+    @Autowired
+    private SessionRepository sessionRepository;
+
+    @Autowired
+    private PlayerPlayTimeRepository playerPlayTimeRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @MockitoBean
+    private GameService gameService;
+
+    @MockitoBean
+    private PlayerMapper playerMapper;
+
+    private Statistics statistics;
+
+    private Player player;
+
+    @BeforeEach
+    void setUp() {
+        player = new Player();
+        player.setNickName("player");
+        player.setEmail("player@test.io");
+        player.setPasswordHash("password");
+        playerRepository.saveAndFlush(player);
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void login_closesOpenedSessionWithBulkUpdates() {
+        LocalDateTime loginTime = LocalDateTime.now().minusHours(1);
+        PlayerSession openedSession = openedSession("previous-token", loginTime, LocalDateTime.now());
+        PlayerPlayTime playerPlayTime = new PlayerPlayTime();
+        playerPlayTime.setPlayerId(player.getId());
+        playerPlayTime.setTotalSeconds(100L);
+        playerPlayTime.setSessionCount(1);
+        playerPlayTimeRepository.saveAndFlush(playerPlayTime);
+        entityManager.clear();
+
+        // the first login also takes a block of session ids from the sequence, which is amortized
+        String firstToken = playerService.login(playerDto()).getToken();
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics.clear();
+        LoginResponseDto response = playerService.login(playerDto());
+        entityManager.flush();
+
+        assertEquals(LoginStatus.SUCCESS, response.getLoginStatus());
+        assertEquals(LOGIN_STATEMENTS, statistics.getPrepareStatementCount());
+        entityManager.clear();
+        assertTrue(sessionRepository.findById(openedSession.getId()).orElseThrow().getIsClosed());
+        assertNull(sessionRepository.findOpenedSessionByToken(firstToken));
+        assertEquals(response.getToken(), sessionRepository.findOpenedSessionByPlayerId(player.getId()).getSessionToken());
+        PlayerPlayTime updatedPlayTime = playerPlayTimeRepository.findById(player.getId()).orElseThrow();
+        assertEquals(3, updatedPlayTime.getSessionCount());
+        assertTrue(updatedPlayTime.getTotalSeconds() >= 100L + 3600L);
+        assertTrue(updatedPlayTime.getLastLoginTime().isAfter(loginTime));
+    }
+
+    @Test
+    void login_expiredSessionKeepsLastActivityTime() {
+        LocalDateTime lastActivityTime = LocalDateTime.now().minusDays(1);
+        PlayerSession openedSession = openedSession("previous-token", lastActivityTime.minusMinutes(10),
+                lastActivityTime);
+        entityManager.clear();
+
+        playerService.login(playerDto());
+        entityManager.flush();
+        entityManager.clear();
+
+        PlayerSession closedSession = sessionRepository.findById(openedSession.getId()).orElseThrow();
+        assertTrue(closedSession.getIsClosed());
+        assertEquals(lastActivityTime.withNano(0), closedSession.getLastActivityTime().withNano(0));
+        // the rollup did not exist yet, so it is rebuilt from the closed sessions
+        assertEquals(600L, playerPlayTimeRepository.findById(player.getId()).orElseThrow().getTotalSeconds());
+    }
+
+    @Test
+    void login_withoutOpenedSessionCreatesNoRollup() {
+        LoginResponseDto response = playerService.login(playerDto());
+        entityManager.flush();
+
+        assertFalse(response.getToken().isEmpty());
+        assertNull(playerPlayTimeRepository.findById(player.getId()).orElse(null));
+    }
+
+    private PlayerSession openedSession(String token, LocalDateTime loginTime, LocalDateTime lastActivityTime) {
+        PlayerSession session = new PlayerSession();
+        session.setPlayerId(player.getId());
+        session.setSessionToken(token);
+        session.setLoginTime(loginTime);
+        session.setLastActivityTime(lastActivityTime);
+        session.setIsClosed(false);
+        return sessionRepository.saveAndFlush(session);
+    }
+
+    private PlayerDto playerDto() {
+        PlayerDto playerDto = new PlayerDto();
+        playerDto.setNickName("player");
+        playerDto.setPasswordHash("password");
+        return playerDto;
+    }
+}
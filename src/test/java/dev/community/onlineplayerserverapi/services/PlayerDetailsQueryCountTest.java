@@ -0,0 +1,120 @@
+package dev.community.onlineplayerserverapi.services;
+
+import dev.community.onlineplayerserverapi.entities.Player;
+import dev.community.onlineplayerserverapi.entities.PlayerSession;
+import dev.community.onlineplayerserverapi.mappers.PlayerMapper;
+import dev.community.onlineplayerserverapi.models.PlayerDetailsRequestDto;
+import dev.community.onlineplayerserverapi.models.PlayerDetailsResponseDto;
+import dev.community.onlineplayerserverapi.repositories.PlayerRepository;
+import dev.community.onlineplayerserverapi.repositories.SessionRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import({PlayerServiceImpl.class, PlayerNameFilter.class, SessionServiceImpl.class, SessionTokenCache.class,
+        SessionActivityBuffer.class})
+class PlayerDetailsQueryCountTest {
+
+    private static final int PLAYERS = 500;
+    private static final int SESSIONS_PER_PLAYER = 3;
+
+    @Autowired
+    private PlayerService playerService;
+
+    @Autowired
+    private SessionService sessionService;
+
+    @Autowired
+    private PlayerRepository playerRepository;
+
+    @Autowired
+    private SessionRepository sessionRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @MockitoBean
+    private GameService gameService;
+
+    @MockitoBean
+    private PlayerMapper playerMapper;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        List<Player> players = new ArrayList<>();
+        for (int i = 0; i < PLAYERS; i++) {
+            Player player = new Player();
+            player.setNickName("player" + i);
+            player.setEmail("player" + i + "@test.io");
+            player.setPasswordHash("password");
+            players.add(player);
+        }
+        playerRepository.saveAll(players);
+
+        LocalDateTime loginTime = LocalDateTime.now().minusHours(1);
+        List<PlayerSession> sessions = new ArrayList<>();
+        for (Player player : players) {
+            for (int i = 0; i < SESSIONS_PER_PLAYER; i++) {
+                PlayerSession session = new PlayerSession();
+                session.setPlayerId(player.getId());
+                session.setSessionToken(player.getNickName() + "-" + i);
+                session.setLoginTime(loginTime);
+                session.setLastActivityTime(loginTime.plusMinutes(10));
+                session.setIsClosed(true);
+                sessions.add(session);
+            }
+        }
+        sessionRepository.saveAllAndFlush(sessions);
+        sessionService.recomputePlayTime(players.stream().map(Player::getId).toList());
+        sessionRepository.flush();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void getPlayerDetailsPage_queryCountDoesNotGrowWithPageSize() {
+        long queriesForSmallPage = countQueries(10);
+        long queriesForLargePage = countQueries(PLAYERS);
+
+        assertTrue(queriesForSmallPage > 0);
+        assertEquals(queriesForSmallPage, queriesForLargePage);
+    }
+
+    @Test
+    void getPlayerDetailsPage_sumsPlayTimeInDatabase() {
+        PlayerDetailsResponseDto response = playerService.getPlayerDetailsPage(pageRequest(1));
+
+        assertEquals(SESSIONS_PER_PLAYER * 600L, response.getPlayerDetails().get(0).getTotalPlayTime());
+    }
+
+    private long countQueries(int pageSize) {
+        statistics.clear();
+        PlayerDetailsResponseDto response = playerService.getPlayerDetailsPage(pageRequest(pageSize));
+        assertEquals(pageSize, response.getPlayerDetails().size());
+        return statistics.getPrepareStatementCount();
+    }
+
+    private PlayerDetailsRequestDto pageRequest(int pageSize) {
+        PlayerDetailsRequestDto requestDto = new PlayerDetailsRequestDto();
+        requestDto.setIncludes(Set.of("nickName", "totalPlayTime"));
+        requestDto.setPageSize(pageSize);
+        return requestDto;
+    }
+}
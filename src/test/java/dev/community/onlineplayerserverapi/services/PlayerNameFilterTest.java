@@ -0,0 +1,61 @@
+package dev.community.onlineplayerserverapi.services;
+
+import dev.community.onlineplayerserverapi.entities.Player;
+import dev.community.onlineplayerserverapi.repositories.PlayerRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest(properties = {"features.players.nameFilter.batchSize=2", "features.players.nameFilter.overlapSeconds=60"})
+@Import(PlayerNameFilter.class)
+class PlayerNameFilterTest {
+
+    @Autowired
+    private PlayerNameFilter playerNameFilter;
+
+    @Autowired
+    private PlayerRepository playerRepository;
+
+    @Test
+    void refresh_loadsAllPlayersInBatches() {
+        LocalDateTime now = LocalDateTime.now();
+        savePlayer("first", now);
+        savePlayer("second", now);
+        savePlayer("third", now.plusSeconds(1));
+
+        playerNameFilter.refresh();
+
+        assertTrue(playerNameFilter.mightContainNickName("FIRST"));
+        assertTrue(playerNameFilter.mightContainNickName("second"));
+        assertTrue(playerNameFilter.mightContainEmail("third@test.io"));
+        assertFalse(playerNameFilter.mightContainNickName("unknown"));
+    }
+
+    @Test
+    void refresh_picksUpPlayerCommittedLateByAnotherInstance() {
+        LocalDateTime now = LocalDateTime.now();
+        savePlayer("newest", now);
+        playerNameFilter.refresh();
+
+        // registered before the newest player was seen, with a lower id taken from another block
+        savePlayer("late", now.minusSeconds(30));
+        playerNameFilter.refresh();
+
+        assertTrue(playerNameFilter.mightContainNickName("late"));
+    }
+
+    private void savePlayer(String nickName, LocalDateTime createdAt) {
+        Player player = new Player();
+        player.setNickName(nickName);
+        player.setEmail(nickName + "@test.io");
+        player.setPasswordHash("password");
+        player.setCreatedAt(createdAt);
+        playerRepository.saveAndFlush(player);
+    }
+}
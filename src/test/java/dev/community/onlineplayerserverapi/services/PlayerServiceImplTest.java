@@ -1,25 +1,45 @@
 package dev.community.onlineplayerserverapi.services;
 
 import dev.community.onlineplayerserverapi.entities.Player;
+import dev.community.onlineplayerserverapi.entities.PlayerGameStats;
 import dev.community.onlineplayerserverapi.entities.PlayerSession;
 import dev.community.onlineplayerserverapi.mappers.PlayerMapper;
 import dev.community.onlineplayerserverapi.models.*;
+import dev.community.onlineplayerserverapi.repositories.PlayerNickName;
 import dev.community.onlineplayerserverapi.repositories.PlayerRepository;
+import dev.community.onlineplayerserverapi.utils.InvalidCursorException;
+import dev.community.onlineplayerserverapi.utils.KeysetCursor;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -40,6 +60,9 @@ class PlayerServiceImplTest {
     @Mock
     private GameService gameService;
 
+    @Mock
+    private PlayerNameFilter playerNameFilter;
+
     @InjectMocks
     private PlayerServiceImpl playerService;
 
@@ -50,6 +73,10 @@ class PlayerServiceImplTest {
 
     @BeforeEach
     void setUp() {
+        ReflectionTestUtils.setField(playerService, "maxPageSize", 2);
+        lenient().when(playerNameFilter.mightContainNickName(anyString())).thenReturn(true);
+        lenient().when(playerNameFilter.mightContainEmail(anyString())).thenReturn(true);
+
         playerDto = new PlayerDto();
         playerDto.setNickName("testUser");
         playerDto.setEmail("test@example.com");
@@ -70,19 +97,47 @@ class PlayerServiceImplTest {
 
     @Test
     void register_success() {
-        when(playerRepository.findByNickName(playerDto.getNickName())).thenReturn(Optional.empty());
-        when(playerRepository.findByEmail(playerDto.getEmail())).thenReturn(Optional.empty());
+        when(playerRepository.existsByNickName(playerDto.getNickName())).thenReturn(false);
+        when(playerRepository.existsByEmail(playerDto.getEmail())).thenReturn(false);
         when(playerMapper.toEntity(playerDto)).thenReturn(player);
-        when(playerRepository.save(any(Player.class))).thenReturn(player);
+        when(playerRepository.saveAndFlush(any(Player.class))).thenReturn(player);
 
         RegisterResponseDto response = playerService.register(playerDto);
 
         assertEquals(LoginStatus.SUCCESS, response.getLoginStatus());
+        verify(playerNameFilter).add("testUser", "test@example.com");
+    }
+
+    @Test
+    void register_concurrentRegistrationTakesTheNickname() {
+        when(playerRepository.existsByNickName(playerDto.getNickName())).thenReturn(false, true);
+        when(playerRepository.existsByEmail(playerDto.getEmail())).thenReturn(false);
+        when(playerMapper.toEntity(playerDto)).thenReturn(player);
+        when(playerRepository.saveAndFlush(player)).thenThrow(new DataIntegrityViolationException("idx_player_nick_name"));
+
+        RegisterResponseDto response = playerService.register(playerDto);
+
+        assertEquals(LoginStatus.REJECTED, response.getLoginStatus());
+        assertEquals("Nickname already exists!", response.getMessage());
+        verify(playerNameFilter, never()).add(anyString(), anyString());
+    }
+
+    @Test
+    void register_concurrentRegistrationTakesTheEmail() {
+        when(playerRepository.existsByNickName(playerDto.getNickName())).thenReturn(false);
+        when(playerRepository.existsByEmail(playerDto.getEmail())).thenReturn(false);
+        when(playerMapper.toEntity(playerDto)).thenReturn(player);
+        when(playerRepository.saveAndFlush(player)).thenThrow(new DataIntegrityViolationException("idx_player_email"));
+
+        RegisterResponseDto response = playerService.register(playerDto);
+
+        assertEquals(LoginStatus.REJECTED, response.getLoginStatus());
+        assertEquals("Email already used!", response.getMessage());
     }
 
     @Test
     void register_nicknameExists() {
-        when(playerRepository.findByNickName(playerDto.getNickName())).thenReturn(Optional.of(player));
+        when(playerRepository.existsByNickName(playerDto.getNickName())).thenReturn(true);
 
         RegisterResponseDto response = playerService.register(playerDto);
 
@@ -92,8 +147,8 @@ class PlayerServiceImplTest {
 
     @Test
     void register_emailExists() {
-        when(playerRepository.findByNickName(playerDto.getNickName())).thenReturn(Optional.empty());
-        when(playerRepository.findByEmail(playerDto.getEmail())).thenReturn(Optional.of(player));
+        when(playerRepository.existsByNickName(playerDto.getNickName())).thenReturn(false);
+        when(playerRepository.existsByEmail(playerDto.getEmail())).thenReturn(true);
 
         RegisterResponseDto response = playerService.register(playerDto);
 
@@ -101,6 +156,29 @@ class PlayerServiceImplTest {
         assertEquals("Email already used!", response.getMessage());
     }
 
+    @Test
+    void register_unknownNamesSkipTheRepository() {
+        when(playerNameFilter.mightContainNickName(playerDto.getNickName())).thenReturn(false);
+        when(playerNameFilter.mightContainEmail(playerDto.getEmail())).thenReturn(false);
+        when(playerMapper.toEntity(playerDto)).thenReturn(player);
+
+        RegisterResponseDto response = playerService.register(playerDto);
+
+        assertEquals(LoginStatus.SUCCESS, response.getLoginStatus());
+        verify(playerRepository, never()).existsByNickName(anyString());
+        verify(playerRepository, never()).existsByEmail(anyString());
+    }
+
+    @Test
+    void isPlayerExisting_confirmsPossibleMatchesInTheRepository() {
+        when(playerNameFilter.mightContainNickName("unknown")).thenReturn(false);
+        when(playerRepository.existsByNickName("testUser")).thenReturn(true);
+
+        assertFalse(playerService.isPlayerExisting("unknown"));
+        assertTrue(playerService.isPlayerExisting("testUser"));
+        verify(playerRepository, never()).existsByNickName("unknown");
+    }
+
     @Test
     void register_invalidEmail() {
         playerDto.setEmail("invalid-email");
@@ -246,7 +324,7 @@ class PlayerServiceImplTest {
         requestDto.setIncludes(Set.of("teamsDetails"));
 
         GameTeamDetailsDto teamDetailsDto = new GameTeamDetailsDto();
-        teamDetailsDto.setPlayers(List.of("1", "2"));
+        teamDetailsDto.setPlayerIds(List.of(1L, 2L));
 
         GameDetailsDto gameDetailsDto = new GameDetailsDto();
         gameDetailsDto.setTeamsDetails(Collections.singletonList(teamDetailsDto));
@@ -255,11 +333,133 @@ class PlayerServiceImplTest {
         responseDto.setGameDetails(Collections.singletonList(gameDetailsDto));
 
         when(gameService.getGameDetails(requestDto)).thenReturn(responseDto);
-        when(playerRepository.findAllById(any()))
-                .thenReturn(Collections.singletonList(player));
+        when(playerRepository.findNickNamesByIdIn(any()))
+                .thenReturn(Collections.singletonList(nickName(player.getId(), player.getNickName())));
 
         GameDetailsResponseDto result = playerService.getGameDetails(requestDto);
 
         assertEquals(player.getNickName(), result.getGameDetails().get(0).getTeamsDetails().get(0).getPlayers().get(0));
     }
+
+    @Test
+    void getGameDetails_resolvesAllTeamsWithOneLookup() {
+        PlayerDetailsRequestDto requestDto = new PlayerDetailsRequestDto();
+        requestDto.setIncludes(Set.of("teamsDetails"));
+        List<GameDetailsDto> games = new ArrayList<>();
+        for (long gameIndex = 0; gameIndex < 3; gameIndex++) {
+            GameTeamDetailsDto firstTeam = new GameTeamDetailsDto();
+            firstTeam.setPlayerIds(List.of(1L));
+            GameTeamDetailsDto secondTeam = new GameTeamDetailsDto();
+            secondTeam.setPlayerIds(List.of(2L));
+            GameDetailsDto game = new GameDetailsDto();
+            game.setTeamsDetails(List.of(firstTeam, secondTeam));
+            games.add(game);
+        }
+        GameDetailsResponseDto responseDto = new GameDetailsResponseDto();
+        responseDto.setGameDetails(games);
+        when(gameService.getGameDetails(requestDto)).thenReturn(responseDto);
+        when(playerRepository.findNickNamesByIdIn(any()))
+                .thenReturn(List.of(nickName(1L, "first"), nickName(2L, "second")));
+
+        GameDetailsResponseDto result = playerService.getGameDetails(requestDto);
+
+        verify(playerRepository, times(1)).findNickNamesByIdIn(any());
+        verify(playerRepository, never()).findAllById(any());
+        assertEquals(List.of("first"), result.getGameDetails().get(2).getTeamsDetails().get(0).getPlayers());
+        assertEquals(List.of("second"), result.getGameDetails().get(2).getTeamsDetails().get(1).getPlayers());
+    }
+
+    private static PlayerNickName nickName(Long id, String nickName) {
+        return new PlayerNickName() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public String getNickName() {
+                return nickName;
+            }
+        };
+    }
+
+    @Test
+    void getPlayerDetailsPage_includesGameStats() {
+        PlayerGameStats playerGameStats = new PlayerGameStats();
+        playerGameStats.setPlayerId(1L);
+        playerGameStats.setGamesPlayed(5);
+        playerGameStats.setWins(3);
+        playerGameStats.setLosses(2);
+        PlayerDetailsRequestDto requestDto = new PlayerDetailsRequestDto();
+        requestDto.setIncludes(Set.of("gamesPlayed", "wins"));
+        when(playerRepository.findBy(any(Specification.class), any()))
+                .thenReturn(List.of(nickName(1L, "testUser"), nickName(2L, "secondUser")));
+        when(gameService.getGameStats(List.of(1L, 2L))).thenReturn(Map.of(1L, playerGameStats));
+
+        PlayerDetailsResponseDto response = playerService.getPlayerDetailsPage(requestDto);
+
+        assertEquals(5, response.getPlayerDetails().get(0).getGamesPlayed());
+        assertEquals(3, response.getPlayerDetails().get(0).getWins());
+        assertNull(response.getPlayerDetails().get(0).getLosses());
+        assertEquals(0, response.getPlayerDetails().get(1).getGamesPlayed());
+    }
+
+    @Test
+    void getPlayerDetailsPage_unpagedRequestIsCapped() {
+        PlayerDetailsRequestDto requestDto = new PlayerDetailsRequestDto();
+        requestDto.setIncludes(Set.of("nickName"));
+        when(playerRepository.findBy(any(Specification.class), any()))
+                .thenReturn(List.of(nickName(1L, "testUser"), nickName(2L, "secondUser")));
+        when(playerRepository.count(any(Specification.class))).thenReturn(3L);
+
+        PlayerDetailsResponseDto response = playerService.getPlayerDetailsPage(requestDto);
+
+        assertEquals(2, response.getPlayerDetails().size());
+        assertEquals("testUser", response.getPlayerDetails().get(0).getNickName());
+        assertEquals(3, response.getTotalPlayers());
+        assertNotNull(response.getNextCursor());
+        verify(playerRepository, never()).findAll();
+    }
+
+    @Test
+    void getPlayerDetailsPage_lastPageHasNoCursor() {
+        PlayerDetailsRequestDto requestDto = new PlayerDetailsRequestDto();
+        requestDto.setPageSize(2);
+        requestDto.setCursor(KeysetCursor.encode(player.getId()));
+        when(playerRepository.findBy(any(Specification.class), any())).thenReturn(List.of(nickName(1L, "testUser")));
+
+        PlayerDetailsResponseDto response = playerService.getPlayerDetailsPage(requestDto);
+
+        assertEquals(1, response.getPlayerDetails().size());
+        assertNull(response.getNextCursor());
+        assertNull(response.getTotalPlayers());
+        verify(playerRepository, never()).count(any(Specification.class));
+    }
+
+    @Test
+    void getPlayerDetailsPage_invalidCursor() {
+        PlayerDetailsRequestDto requestDto = new PlayerDetailsRequestDto();
+        requestDto.setCursor("not-a-cursor");
+
+        assertThrows(InvalidCursorException.class, () -> playerService.getPlayerDetailsPage(requestDto));
+    }
+
+    @Test
+    void getPlayerDetailsPage_nickNamesQueriedInBatches() {
+        PlayerFilterDto filterDto = new PlayerFilterDto();
+        filterDto.setNickNames(IntStream.range(0, 1200).mapToObj(i -> "player" + i).toList());
+        PlayerDetailsRequestDto requestDto = new PlayerDetailsRequestDto();
+        requestDto.setFilter(filterDto);
+        requestDto.setIncludes(Set.of("nickName"));
+        when(playerRepository.findBy(any(Specification.class), any()))
+                .thenReturn(List.of(nickName(1L, "testUser")), List.of(), List.of());
+        when(playerRepository.count(any(Specification.class))).thenReturn(1L, 0L, 0L);
+
+        PlayerDetailsResponseDto response = playerService.getPlayerDetailsPage(requestDto);
+
+        assertEquals(1, response.getPlayerDetails().size());
+        assertEquals(1, response.getTotalPlayers());
+        verify(playerRepository, times(3)).findBy(any(Specification.class), any());
+        verify(playerRepository, never()).findAll();
+    }
 }
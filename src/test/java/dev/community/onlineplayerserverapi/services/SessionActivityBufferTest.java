@@ -0,0 +1,125 @@
+package dev.community.onlineplayerserverapi.services;
+
+import dev.community.onlineplayerserverapi.utils.Batches;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SessionActivityBufferTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @InjectMocks
+    private SessionActivityBuffer sessionActivityBuffer;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(sessionActivityBuffer, "maxStalenessMillis", 0L);
+    }
+
+    @Test
+    void flushStale_coalescesActivitiesOfSameSession() {
+        runTransactionCallbacks();
+        LocalDateTime latestActivity = LocalDateTime.now();
+        sessionActivityBuffer.record(1L, latestActivity.minusSeconds(10));
+        sessionActivityBuffer.record(1L, latestActivity);
+        sessionActivityBuffer.record(1L, latestActivity.minusSeconds(5));
+
+        sessionActivityBuffer.flushStale();
+
+        List<Object[]> batchArgs = captureBatches().get(0);
+        assertEquals(1, batchArgs.size());
+        assertArrayEquals(new Object[]{latestActivity, 1L, latestActivity}, batchArgs.get(0));
+        assertTrue(sessionActivityBuffer.peek(1L).isEmpty());
+    }
+
+    @Test
+    void flushStale_keepsFreshActivities() {
+        ReflectionTestUtils.setField(sessionActivityBuffer, "maxStalenessMillis", 60_000L);
+        sessionActivityBuffer.record(1L, LocalDateTime.now());
+
+        sessionActivityBuffer.flushStale();
+
+        verifyNoInteractions(jdbcTemplate);
+        assertTrue(sessionActivityBuffer.peek(1L).isPresent());
+    }
+
+    @Test
+    void flushAll_writesEachBatchAsOneGuardedJdbcBatch() {
+        runTransactionCallbacks();
+        for (long sessionId = 1; sessionId <= Batches.IN_LIST_BATCH_SIZE + 1; sessionId++) {
+            sessionActivityBuffer.record(sessionId, LocalDateTime.now());
+        }
+
+        sessionActivityBuffer.flushAll();
+
+        verify(jdbcTemplate, times(2)).batchUpdate(
+                contains("where id = ? and is_closed = false and last_activity_time < ?"), anyList());
+        assertEquals(List.of(Batches.IN_LIST_BATCH_SIZE, 1),
+                captureBatches().stream().map(List::size).sorted(Comparator.reverseOrder()).toList());
+    }
+
+    @Test
+    void flushAll_keepsEveryUnwrittenActivityWhenBatchFails() {
+        doThrow(new IllegalStateException("database down"))
+                .when(transactionTemplate).executeWithoutResult(any());
+        for (long sessionId = 1; sessionId <= Batches.IN_LIST_BATCH_SIZE + 1; sessionId++) {
+            sessionActivityBuffer.record(sessionId, LocalDateTime.now());
+        }
+
+        assertThrows(IllegalStateException.class, () -> sessionActivityBuffer.flushAll());
+
+        for (long sessionId = 1; sessionId <= Batches.IN_LIST_BATCH_SIZE + 1; sessionId++) {
+            assertTrue(sessionActivityBuffer.peek(sessionId).isPresent());
+        }
+    }
+
+    @Test
+    void take_removesPendingActivity() {
+        LocalDateTime activity = LocalDateTime.now();
+        sessionActivityBuffer.record(1L, activity);
+
+        assertEquals(activity, sessionActivityBuffer.take(1L).orElseThrow());
+        assertTrue(sessionActivityBuffer.take(1L).isEmpty());
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<List<Object[]>> captureBatches() {
+        ArgumentCaptor<List<Object[]>> batchArgs = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, atLeastOnce()).batchUpdate(anyString(), batchArgs.capture());
+        return batchArgs.getAllValues();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void runTransactionCallbacks() {
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any(Consumer.class));
+    }
+}
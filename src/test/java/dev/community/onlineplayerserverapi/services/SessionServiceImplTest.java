@@ -1,20 +1,32 @@
 package dev.community.onlineplayerserverapi.services;
 
+import dev.community.onlineplayerserverapi.entities.PlayerPlayTime;
 import dev.community.onlineplayerserverapi.entities.PlayerSession;
+import dev.community.onlineplayerserverapi.repositories.PlayTimeTotal;
+import dev.community.onlineplayerserverapi.repositories.PlayerPlayTimeRepository;
+import dev.community.onlineplayerserverapi.repositories.SessionArchiveRepository;
 import dev.community.onlineplayerserverapi.repositories.SessionRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.test.util.ReflectionTestUtils;
 
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.longThat;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -25,6 +37,18 @@ class SessionServiceImplTest {
     @Mock
     private SessionRepository sessionRepository;
 
+    @Mock
+    private PlayerPlayTimeRepository playerPlayTimeRepository;
+
+    @Mock
+    private SessionArchiveRepository sessionArchiveRepository;
+
+    @Mock
+    private SessionTokenCache sessionTokenCache;
+
+    @Mock
+    private SessionActivityBuffer sessionActivityBuffer;
+
     @InjectMocks
     private SessionServiceImpl sessionService;
 
@@ -45,7 +69,6 @@ class SessionServiceImplTest {
 
     @Test
     void createPlayerSession_newSession() {
-        when(sessionRepository.findOpenedSessionByPlayerId(anyLong())).thenReturn(null);
         when(sessionRepository.save(any(PlayerSession.class))).thenAnswer(invocation -> {
             PlayerSession session = invocation.getArgument(0);
             session.setId(2L); // Simulate saving and getting an ID
@@ -55,31 +78,80 @@ class SessionServiceImplTest {
         String token = sessionService.createPlayerSession(100L);
 
         assertNotNull(token);
-        verify(sessionRepository, times(1)).findOpenedSessionByPlayerId(100L);
+        verify(sessionRepository, times(1)).lockOpenedSessionIdsOfPlayer(100L);
+        verify(sessionRepository, never()).closeOpenedSessions(anyList(), any(LocalDateTime.class),
+                any(LocalDateTime.class), anyBoolean());
+        verify(playerPlayTimeRepository, never()).addOpenedSessions(anyList(), any(LocalDateTime.class),
+                any(LocalDateTime.class), anyBoolean());
         verify(sessionRepository, times(1)).save(any(PlayerSession.class));
     }
 
     @Test
-    void createPlayerSession_existingSessionClosed() {
-        when(sessionRepository.findOpenedSessionByPlayerId(anyLong())).thenReturn(playerSession);
+    void createPlayerSession_existingSessionClosedWithoutLoading() {
+        when(sessionRepository.lockOpenedSessionIdsOfPlayer(100L)).thenReturn(List.of(1L));
+        when(playerPlayTimeRepository.addOpenedSessions(eq(List.of(1L)), any(LocalDateTime.class),
+                any(LocalDateTime.class), anyBoolean())).thenReturn(1);
+        when(sessionRepository.closeOpenedSessions(eq(List.of(1L)), any(LocalDateTime.class),
+                any(LocalDateTime.class), anyBoolean())).thenReturn(1);
         when(sessionRepository.save(any(PlayerSession.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
         String token = sessionService.createPlayerSession(100L);
 
         assertNotNull(token);
-        assertTrue(playerSession.getIsClosed());
-        verify(sessionRepository, times(1)).findOpenedSessionByPlayerId(100L);
-        verify(sessionRepository, times(2)).save(any(PlayerSession.class)); // Once for closing, once for creating
+        verify(sessionRepository, never()).findOpenedSessionByPlayerId(anyLong());
+        verify(sessionRepository, times(1)).save(any(PlayerSession.class));
+        verify(playerPlayTimeRepository, never()).save(any(PlayerPlayTime.class));
+    }
+
+    @Test
+    void createPlayerSession_missingRollupIsRecomputed() {
+        when(sessionRepository.lockOpenedSessionIdsOfPlayer(100L)).thenReturn(List.of(1L));
+        when(sessionRepository.closeOpenedSessions(eq(List.of(1L)), any(LocalDateTime.class),
+                any(LocalDateTime.class), anyBoolean())).thenReturn(1);
+        when(sessionRepository.sumClosedPlayTimeByPlayerIds(List.of(100L))).thenReturn(List.of());
+        when(sessionRepository.save(any(PlayerSession.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        sessionService.createPlayerSession(100L);
+
+        verify(sessionRepository, times(1)).sumClosedPlayTimeByPlayerIds(List.of(100L));
+    }
+
+    @Test
+    void createPlayerSession_pendingActivityKeepsPreviousSessionActive() {
+        when(sessionTokenCache.invalidatePlayer(100L)).thenReturn(playerSession);
+        when(sessionActivityBuffer.take(1L)).thenReturn(Optional.of(LocalDateTime.now()));
+        when(sessionRepository.lockOpenedSessionIdsOfPlayer(100L)).thenReturn(List.of(1L));
+        when(sessionRepository.save(any(PlayerSession.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        sessionService.createPlayerSession(100L);
+
+        verify(sessionRepository, times(1)).closeOpenedSessions(eq(List.of(1L)), any(LocalDateTime.class),
+                any(LocalDateTime.class), eq(true));
+        verify(playerPlayTimeRepository, times(1)).addOpenedSessions(eq(List.of(1L)), any(LocalDateTime.class),
+                any(LocalDateTime.class), eq(true));
     }
 
     @Test
     void closePlayerSession_sessionFound() {
         when(sessionRepository.findOpenedSessionByToken(TEST_TOKEN)).thenReturn(playerSession);
+        when(sessionRepository.closeOpenedSession(eq(1L), any(LocalDateTime.class))).thenReturn(1);
+
+        sessionService.closePlayerSession(TEST_TOKEN);
+
+        verify(sessionRepository, times(1)).closeOpenedSession(eq(1L), any(LocalDateTime.class));
+        verify(playerPlayTimeRepository, times(1)).addClosedSession(eq(100L), anyLong(), any(LocalDateTime.class));
+        verify(sessionRepository, never()).save(any(PlayerSession.class));
+    }
+
+    @Test
+    void closePlayerSession_closedConcurrentlyIsNotAddedAgain() {
+        when(sessionRepository.findOpenedSessionByToken(TEST_TOKEN)).thenReturn(playerSession);
+        when(sessionRepository.closeOpenedSession(eq(1L), any(LocalDateTime.class))).thenReturn(0);
 
         sessionService.closePlayerSession(TEST_TOKEN);
 
-        assertTrue(playerSession.getIsClosed());
-        verify(sessionRepository, times(1)).save(playerSession);
+        verify(playerPlayTimeRepository, never()).addClosedSession(anyLong(), anyLong(), any(LocalDateTime.class));
+        verify(playerPlayTimeRepository, never()).save(any(PlayerPlayTime.class));
     }
 
     @Test
@@ -88,7 +160,7 @@ class SessionServiceImplTest {
 
         sessionService.closePlayerSession(NON_EXISTENT_TOKEN);
 
-        verify(sessionRepository, never()).save(any(PlayerSession.class));
+        verify(sessionRepository, never()).closeOpenedSession(anyLong(), any(LocalDateTime.class));
     }
 
     @Test
@@ -131,4 +203,203 @@ class SessionServiceImplTest {
 
         assertFalse(sessionService.isSessionValid(TEST_TOKEN));
     }
+
+    @Test
+    void closePlayerSession_addsSessionToRollup() {
+        playerSession.setLoginTime(LocalDateTime.now().minusMinutes(30));
+        when(sessionRepository.findOpenedSessionByToken(TEST_TOKEN)).thenReturn(playerSession);
+        when(sessionRepository.closeOpenedSession(eq(1L), any(LocalDateTime.class))).thenReturn(1);
+        when(playerPlayTimeRepository.addClosedSession(eq(100L), anyLong(), eq(playerSession.getLoginTime()))).thenReturn(1);
+
+        sessionService.closePlayerSession(TEST_TOKEN);
+
+        verify(playerPlayTimeRepository, times(1)).addClosedSession(eq(100L), longThat(seconds -> seconds >= 1800),
+                eq(playerSession.getLoginTime()));
+        verify(playerPlayTimeRepository, never()).save(any(PlayerPlayTime.class));
+    }
+
+    @Test
+    void closePlayerSession_missingRollupIsCreatedByTheUpsert() {
+        when(sessionRepository.findOpenedSessionByToken(TEST_TOKEN)).thenReturn(playerSession);
+        when(sessionRepository.closeOpenedSession(eq(1L), any(LocalDateTime.class))).thenReturn(1);
+
+        sessionService.closePlayerSession(TEST_TOKEN);
+
+        verify(playerPlayTimeRepository, times(1)).addClosedSession(eq(100L), anyLong(), any(LocalDateTime.class));
+        verify(playerPlayTimeRepository, never()).save(any(PlayerPlayTime.class));
+    }
+
+    @Test
+    void getTotalPlayTimes_addsOpenedSessionToRollup() {
+        PlayerPlayTime playerPlayTime = new PlayerPlayTime();
+        playerPlayTime.setPlayerId(100L);
+        playerPlayTime.setTotalSeconds(500L);
+        playerSession.setLoginTime(playerSession.getLastActivityTime().minusSeconds(60));
+        when(playerPlayTimeRepository.findAllById(List.of(100L, 200L))).thenReturn(List.of(playerPlayTime));
+        when(sessionRepository.findOpenedSessionsByPlayerIds(List.of(100L, 200L))).thenReturn(List.of(playerSession));
+
+        Map<Long, Long> totalPlayTimes = sessionService.getTotalPlayTimes(List.of(100L, 200L));
+
+        assertEquals(560L, totalPlayTimes.get(100L));
+        assertNull(totalPlayTimes.get(200L));
+    }
+
+    @Test
+    void getPlayerSession_cachedSessionSkipsRepository() {
+        when(sessionTokenCache.get(TEST_TOKEN)).thenReturn(playerSession);
+
+        PlayerSession foundSession = sessionService.getPlayerSession(TEST_TOKEN);
+
+        assertEquals(playerSession, foundSession);
+        verify(sessionRepository, never()).findOpenedSessionByToken(anyString());
+    }
+
+    @Test
+    void getPlayerSession_loadedSessionIsCached() {
+        when(sessionRepository.findOpenedSessionByToken(TEST_TOKEN)).thenReturn(playerSession);
+
+        sessionService.getPlayerSession(TEST_TOKEN);
+
+        verify(sessionTokenCache, times(1)).put(playerSession);
+    }
+
+    @Test
+    void closePlayerSession_invalidatesCachedToken() {
+        when(sessionRepository.findOpenedSessionByToken(TEST_TOKEN)).thenReturn(playerSession);
+
+        sessionService.closePlayerSession(TEST_TOKEN);
+
+        verify(sessionTokenCache, times(1)).invalidate(TEST_TOKEN);
+    }
+
+    @Test
+    void createPlayerSession_invalidatesPreviousToken() {
+        when(sessionRepository.save(any(PlayerSession.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        String token = sessionService.createPlayerSession(100L);
+
+        verify(sessionTokenCache, times(1)).invalidatePlayer(100L);
+        verify(sessionTokenCache, times(1)).put(argThat(session -> token.equals(session.getSessionToken())));
+    }
+
+    @Test
+    void updateActivity_isBufferedInsteadOfSaved() {
+        when(sessionRepository.findOpenedSessionByToken(TEST_TOKEN)).thenReturn(playerSession);
+
+        sessionService.updateActivity(TEST_TOKEN);
+
+        verify(sessionActivityBuffer, times(1)).record(eq(1L), any(LocalDateTime.class));
+        verify(sessionRepository, never()).save(any(PlayerSession.class));
+    }
+
+    @Test
+    void closePlayerSession_appliesPendingActivity() {
+        LocalDateTime pendingActivity = LocalDateTime.now().plusSeconds(5);
+        playerSession.setLastActivityTime(LocalDateTime.now().minusHours(2));
+        when(sessionRepository.findOpenedSessionByToken(TEST_TOKEN)).thenReturn(playerSession);
+        when(sessionActivityBuffer.take(1L)).thenReturn(Optional.of(pendingActivity));
+
+        sessionService.closePlayerSession(TEST_TOKEN);
+
+        verify(sessionRepository, times(1)).closeOpenedSession(eq(1L),
+                argThat(lastActivityTime -> !lastActivityTime.isBefore(pendingActivity.minusSeconds(5))));
+    }
+
+    @Test
+    void getPlayerSession_expiredSessionIsNotServed() {
+        playerSession.setLastActivityTime(LocalDateTime.now().minusHours(2));
+        when(sessionRepository.findOpenedSessionByToken(TEST_TOKEN)).thenReturn(playerSession);
+
+        assertNull(sessionService.getPlayerSession(TEST_TOKEN));
+        assertFalse(sessionService.isSessionValid(TEST_TOKEN));
+        verify(sessionTokenCache, never()).put(any(PlayerSession.class));
+    }
+
+    @Test
+    void getPlayerSession_pendingActivityKeepsSessionValid() {
+        playerSession.setLastActivityTime(LocalDateTime.now().minusHours(2));
+        when(sessionRepository.findOpenedSessionByToken(TEST_TOKEN)).thenReturn(playerSession);
+        when(sessionActivityBuffer.peek(1L)).thenReturn(Optional.of(LocalDateTime.now()));
+
+        assertEquals(playerSession, sessionService.getPlayerSession(TEST_TOKEN));
+    }
+
+    @Test
+    void closeExpiredSessions_skipsSessionsWithPendingActivity() {
+        LocalDateTime expiredBefore = LocalDateTime.now().minusHours(1);
+        when(sessionActivityBuffer.peek(anyLong())).thenReturn(Optional.empty());
+        when(sessionActivityBuffer.peek(2L)).thenReturn(Optional.of(LocalDateTime.now()));
+        when(sessionRepository.lockExpiredSessionIds(List.of(1L, 3L), expiredBefore)).thenReturn(List.of(1L, 3L));
+        when(sessionRepository.closeExpiredSessions(List.of(1L, 3L), expiredBefore)).thenReturn(2);
+
+        int closedSessions = sessionService.closeExpiredSessions(List.of(1L, 2L, 3L), expiredBefore);
+
+        assertEquals(2, closedSessions);
+        verify(playerPlayTimeRepository, times(1)).addExpiredSessions(List.of(1L, 3L), expiredBefore);
+        verify(sessionRepository, never()).sumClosedPlayTimeByPlayerIds(anyCollection());
+    }
+
+    @Test
+    void closeExpiredSessions_addsOnlySessionsStillOpenedOnceLocked() {
+        LocalDateTime expiredBefore = LocalDateTime.now().minusHours(1);
+        when(sessionActivityBuffer.peek(anyLong())).thenReturn(Optional.empty());
+        // session 2 was closed by a logout while this sweep waited for its lock
+        when(sessionRepository.lockExpiredSessionIds(List.of(1L, 2L), expiredBefore)).thenReturn(List.of(1L));
+        when(sessionRepository.closeExpiredSessions(List.of(1L), expiredBefore)).thenReturn(1);
+
+        assertEquals(1, sessionService.closeExpiredSessions(List.of(1L, 2L), expiredBefore));
+        verify(playerPlayTimeRepository, times(1)).addExpiredSessions(List.of(1L), expiredBefore);
+    }
+
+    @Test
+    void recomputePlayTime_addsArchivedSessions() {
+        LocalDateTime lastLoginTime = LocalDateTime.now().minusDays(1);
+        when(sessionRepository.sumClosedPlayTimeByPlayerIds(List.of(100L)))
+                .thenReturn(List.of(playTimeTotal(100L, 300L, 2L, lastLoginTime)));
+        when(sessionArchiveRepository.sumPlayTimeByPlayerIds(List.of(100L)))
+                .thenReturn(List.of(playTimeTotal(100L, 1000L, 5L, lastLoginTime.minusDays(60))));
+
+        sessionService.recomputePlayTime(List.of(100L));
+
+        verify(playerPlayTimeRepository, times(1)).saveAll(argThat(rollups -> {
+            PlayerPlayTime playerPlayTime = rollups.iterator().next();
+            return playerPlayTime.getTotalSeconds() == 1300L && playerPlayTime.getSessionCount() == 7
+                    && lastLoginTime.equals(playerPlayTime.getLastLoginTime());
+        }));
+    }
+
+    @Test
+    void archiveClosedSessions_copiesBeforeDeleting() {
+        when(sessionRepository.deleteClosedSessions(List.of(1L, 2L))).thenReturn(2);
+
+        assertEquals(2, sessionService.archiveClosedSessions(List.of(1L, 2L)));
+
+        InOrder inOrder = inOrder(sessionArchiveRepository, sessionRepository);
+        inOrder.verify(sessionArchiveRepository).copyClosedSessions(List.of(1L, 2L));
+        inOrder.verify(sessionRepository).deleteClosedSessions(List.of(1L, 2L));
+    }
+
+    private PlayTimeTotal playTimeTotal(Long playerId, Long totalSeconds, Long sessionCount, LocalDateTime lastLoginTime) {
+        return new PlayTimeTotal() {
+            @Override
+            public Long getPlayerId() {
+                return playerId;
+            }
+
+            @Override
+            public Long getTotalSeconds() {
+                return totalSeconds;
+            }
+
+            @Override
+            public Long getSessionCount() {
+                return sessionCount;
+            }
+
+            @Override
+            public LocalDateTime getLastLoginTime() {
+                return lastLoginTime;
+            }
+        };
+    }
 }
@@ -0,0 +1,78 @@
+package dev.community.onlineplayerserverapi.services;
+
+import dev.community.onlineplayerserverapi.entities.PlayerSession;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SessionTokenCacheTest {
+
+    public static final String TEST_TOKEN = "test-token";
+
+    private SessionTokenCache sessionTokenCache;
+
+    private PlayerSession playerSession;
+
+    @BeforeEach
+    void setUp() {
+        sessionTokenCache = new SessionTokenCache();
+        ReflectionTestUtils.setField(sessionTokenCache, "sessionExpirationTime", 3600);
+        ReflectionTestUtils.setField(sessionTokenCache, "cacheTtlSeconds", 60);
+        ReflectionTestUtils.setField(sessionTokenCache, "maximumSize", 10L);
+        sessionTokenCache.init();
+
+        playerSession = new PlayerSession();
+        playerSession.setPlayerId(100L);
+        playerSession.setSessionToken(TEST_TOKEN);
+        playerSession.setLastActivityTime(LocalDateTime.now());
+    }
+
+    @Test
+    void get_countsHitsAndMisses() {
+        assertNull(sessionTokenCache.get(TEST_TOKEN));
+        sessionTokenCache.put(playerSession);
+
+        assertEquals(playerSession, sessionTokenCache.get(TEST_TOKEN));
+        assertEquals(1, sessionTokenCache.stats().hitCount());
+        assertEquals(1, sessionTokenCache.stats().missCount());
+    }
+
+    @Test
+    void put_expiredSessionIsNotServed() {
+        playerSession.setLastActivityTime(LocalDateTime.now().minusHours(2));
+
+        sessionTokenCache.put(playerSession);
+
+        assertNull(sessionTokenCache.get(TEST_TOKEN));
+    }
+
+    @Test
+    void invalidate_removesToken() {
+        sessionTokenCache.put(playerSession);
+
+        sessionTokenCache.invalidate(TEST_TOKEN);
+
+        assertNull(sessionTokenCache.get(TEST_TOKEN));
+    }
+
+    @Test
+    void invalidatePlayer_removesLatestSessionOfPlayer() {
+        sessionTokenCache.put(playerSession);
+
+        assertEquals(playerSession, sessionTokenCache.invalidatePlayer(100L));
+        assertNull(sessionTokenCache.get(TEST_TOKEN));
+        assertNull(sessionTokenCache.invalidatePlayer(100L));
+    }
+
+    @Test
+    void invalidatePlayer_ignoresTokenInvalidatedBefore() {
+        sessionTokenCache.put(playerSession);
+        sessionTokenCache.invalidate(TEST_TOKEN);
+
+        assertNull(sessionTokenCache.invalidatePlayer(100L));
+    }
+}
@@ -0,0 +1,55 @@
+package dev.community.onlineplayerserverapi.services;
+
+import dev.community.onlineplayerserverapi.entities.PlayerGameStats;
+import dev.community.onlineplayerserverapi.entities.PlayerPlayTime;
+import dev.community.onlineplayerserverapi.repositories.PlayerGameStatsRepository;
+import dev.community.onlineplayerserverapi.repositories.PlayerPlayTimeRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest
+class StatsUpsertTest {
+
+    @Autowired
+    private PlayerGameStatsRepository playerGameStatsRepository;
+
+    @Autowired
+    private PlayerPlayTimeRepository playerPlayTimeRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    void addGameResult_createsTheRowThenAddsToIt() {
+        playerGameStatsRepository.addGameResult(100L, 1, 0);
+        playerGameStatsRepository.addGameResult(100L, 0, 1);
+        playerGameStatsRepository.addGameResult(100L, 1, 0);
+        entityManager.clear();
+
+        PlayerGameStats stats = playerGameStatsRepository.findById(100L).orElseThrow();
+        assertEquals(3, stats.getGamesPlayed());
+        assertEquals(2, stats.getWins());
+        assertEquals(1, stats.getLosses());
+    }
+
+    @Test
+    void addClosedSession_createsTheRollupThenAddsToIt() {
+        LocalDateTime firstLogin = LocalDateTime.now().minusHours(2).withNano(0);
+        LocalDateTime secondLogin = firstLogin.plusHours(1);
+
+        playerPlayTimeRepository.addClosedSession(100L, 600L, secondLogin);
+        playerPlayTimeRepository.addClosedSession(100L, 300L, firstLogin);
+        entityManager.clear();
+
+        PlayerPlayTime playerPlayTime = playerPlayTimeRepository.findById(100L).orElseThrow();
+        assertEquals(900L, playerPlayTime.getTotalSeconds());
+        assertEquals(2, playerPlayTime.getSessionCount());
+        assertEquals(secondLogin, playerPlayTime.getLastLoginTime());
+    }
+}